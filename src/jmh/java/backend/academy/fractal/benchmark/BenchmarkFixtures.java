@@ -0,0 +1,59 @@
+package backend.academy.fractal.benchmark;
+
+import backend.academy.fractal.image.ChaosGame;
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.transformations.linear.AffineTransformations;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.units.AffineMatrix;
+import backend.academy.fractal.units.Symmetry;
+
+/**
+ * Shared inputs of the benchmarks. Everything is seeded, so all runs measure the same flame.
+ */
+final class BenchmarkFixtures {
+    static final long SEED = 42;
+    static final int ITERATIONS = 100;
+    static final AffineMatrix[] MATRICES = new AffineTransformations().getTransformation(1);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Parses a resolution parameter of the form {@code WIDTHxHEIGHT}.
+     *
+     * @param resolution the resolution parameter
+     * @return the width and the height
+     */
+    static int[] resolution(String resolution) {
+        String[] parts = resolution.split("x");
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    /**
+     * Creates the chaos game of the benchmarked flame.
+     *
+     * @param width    the width of the histogram
+     * @param height   the height of the histogram
+     * @param symmetry the symmetry specification
+     * @return the chaos game
+     */
+    static ChaosGame chaosGame(int width, int height, String symmetry) {
+        return new ChaosGame(
+            width, height, new DiamondTransformation(), MATRICES, Symmetry.parse(symmetry), ITERATIONS
+        );
+    }
+
+    /**
+     * Creates a histogram filled by the benchmarked flame.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     * @param points the number of walkers
+     * @param seed   the seed of the walkers
+     * @return the filled histogram
+     */
+    static Histogram histogram(int width, int height, int points, long seed) {
+        return chaosGame(width, height, "1").play(points, RandomSource.create(seed), Histogram.create(width, height));
+    }
+}
@@ -0,0 +1,62 @@
+package backend.academy.fractal.benchmark;
+
+import backend.academy.fractal.image.ChaosGame;
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.random.RandomSource;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the chaos game inner loop of a single worker: one operation is a batch of walkers,
+ * each advanced {@link BenchmarkFixtures#ITERATIONS} times and splatted with its symmetric images.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChaosGameBenchmark {
+    private static final int POINTS = 1_000;
+
+    @Param({"1920x1080", "3840x2160"})
+    private String resolution;
+
+    @Param({"1", "6", "D6"})
+    private String symmetry;
+
+    private ChaosGame chaosGame;
+    private RandomSource random;
+    private Histogram histogram;
+
+    /**
+     * Prepares the flame and an empty histogram.
+     */
+    @Setup
+    public void setup() {
+        int[] size = BenchmarkFixtures.resolution(resolution);
+        chaosGame = BenchmarkFixtures.chaosGame(size[0], size[1], symmetry);
+        random = RandomSource.create(BenchmarkFixtures.SEED);
+        histogram = Histogram.create(size[0], size[1]);
+    }
+
+    /**
+     * Advances a batch of walkers.
+     *
+     * @return the histogram, to keep the work observable
+     */
+    @Benchmark
+    public Histogram play() {
+        return chaosGame.play(POINTS, random, histogram);
+    }
+}
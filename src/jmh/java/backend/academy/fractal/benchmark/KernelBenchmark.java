@@ -0,0 +1,85 @@
+package backend.academy.fractal.benchmark;
+
+import backend.academy.fractal.image.ChaosGame;
+import backend.academy.fractal.image.ChaosKernels;
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.transformations.Transformation;
+import backend.academy.fractal.transformations.nonlinear.BubbleTransformation;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.transformations.nonlinear.ExponentialTransformation;
+import backend.academy.fractal.transformations.nonlinear.FisheyeTransformation;
+import backend.academy.fractal.transformations.nonlinear.RaysTransformation;
+import backend.academy.fractal.units.Symmetry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the scalar, the batched and the vector chaos game kernels on every variation.
+ * One operation is a batch of walkers on a 1920x1080 histogram without symmetry.
+ * The vector kernel needs the {@code vector} profile,
+ * {@code mvn -Pjmh,vector compile exec:exec -Djmh.args="KernelBenchmark"},
+ * and the setup fails without it instead of silently measuring the scalar fallback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int POINTS = 1_024;
+
+    @Param({"scalar", "batched", "vector"})
+    private String kernel;
+
+    @Param({"diamond", "bubble", "fisheye", "exponential", "rays"})
+    private String variation;
+
+    private ChaosGame chaosGame;
+    private RandomSource random;
+    private Histogram histogram;
+
+    /**
+     * Prepares the flame with the benchmarked kernel and an empty histogram.
+     */
+    @Setup
+    public void setup() {
+        if ("vector".equals(kernel) && !ChaosKernels.vectorAvailable()) {
+            throw new IllegalStateException("The vector kernel needs -Pvector and jdk.incubator.vector");
+        }
+        Transformation transformation = switch (variation) {
+            case "diamond" -> new DiamondTransformation();
+            case "bubble" -> new BubbleTransformation();
+            case "fisheye" -> new FisheyeTransformation();
+            case "exponential" -> new ExponentialTransformation();
+            default -> new RaysTransformation();
+        };
+        chaosGame = new ChaosGame(WIDTH, HEIGHT, transformation, BenchmarkFixtures.MATRICES, Symmetry.parse("1"),
+            BenchmarkFixtures.ITERATIONS).withKernel(ChaosKernels.byName(kernel));
+        random = RandomSource.create(BenchmarkFixtures.SEED);
+        histogram = Histogram.create(WIDTH, HEIGHT);
+    }
+
+    /**
+     * Advances a batch of walkers.
+     *
+     * @return the histogram, to keep the work observable
+     */
+    @Benchmark
+    public Histogram play() {
+        return chaosGame.play(POINTS, random, histogram);
+    }
+}
@@ -0,0 +1,68 @@
+package backend.academy.fractal.benchmark;
+
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.image.HistogramMergeTask;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures merging a per-thread histogram into the main one, serially and on the fork/join pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeBenchmark {
+    private static final int POINTS = 2_000;
+
+    @Param({"1920x1080", "3840x2160", "7680x4320"})
+    private String resolution;
+
+    private Histogram main;
+    private Histogram thread;
+
+    /**
+     * Fills both histograms.
+     */
+    @Setup
+    public void setup() {
+        int[] size = BenchmarkFixtures.resolution(resolution);
+        main = BenchmarkFixtures.histogram(size[0], size[1], POINTS, BenchmarkFixtures.SEED);
+        thread = BenchmarkFixtures.histogram(size[0], size[1], POINTS, BenchmarkFixtures.SEED + 1);
+    }
+
+    /**
+     * Merges on the calling thread.
+     *
+     * @return the main histogram
+     */
+    @Benchmark
+    public Histogram mergeSerial() {
+        main.merge(thread);
+        return main;
+    }
+
+    /**
+     * Merges in parallel row bands.
+     *
+     * @return the main histogram
+     */
+    @Benchmark
+    public Histogram mergeParallel() {
+        ForkJoinPool.commonPool().invoke(new HistogramMergeTask(main, thread));
+        return main;
+    }
+}
@@ -0,0 +1,75 @@
+package backend.academy.fractal.benchmark;
+
+import backend.academy.fractal.image.AccumulationMode;
+import backend.academy.fractal.image.FractalGenerator;
+import backend.academy.fractal.image.RenderOptions;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.units.Symmetry;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a whole render from the first walker to the final image,
+ * for different thread counts and accumulation strategies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RenderBenchmark {
+    private static final int POINTS = 20_000;
+
+    @Param({"1920x1080", "3840x2160"})
+    private String resolution;
+
+    @Param({"6"})
+    private String symmetry;
+
+    @Param({"1", "4", "8"})
+    private int threads;
+
+    @Param({"PER_THREAD", "SHARED"})
+    private AccumulationMode mode;
+
+    private FractalGenerator generator;
+
+    /**
+     * Creates the generator.
+     */
+    @Setup
+    public void setup() {
+        int[] size = BenchmarkFixtures.resolution(resolution);
+        generator = new FractalGenerator(
+            size[0], size[1], new DiamondTransformation(), RandomSource.create(BenchmarkFixtures.SEED)
+        );
+    }
+
+    /**
+     * Renders the flame.
+     *
+     * @return the rendered image
+     * @throws IOException never, the render has no checkpoints
+     */
+    @Benchmark
+    public BufferedImage render() throws IOException {
+        return generator.generateFractal(
+            BenchmarkFixtures.ITERATIONS, POINTS, BenchmarkFixtures.MATRICES, Symmetry.parse(symmetry),
+            RenderOptions.threads(threads).withMode(mode)
+        );
+    }
+}
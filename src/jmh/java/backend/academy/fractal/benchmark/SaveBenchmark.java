@@ -0,0 +1,77 @@
+package backend.academy.fractal.benchmark;
+
+import backend.academy.fractal.image.ImageFormat;
+import backend.academy.fractal.image.ImageUtils;
+import backend.academy.fractal.image.ToneMapper;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and writing the final image in every supported format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveBenchmark {
+    private static final int POINTS = 2_000;
+    private static final double GAMMA = 2.2;
+
+    @Param({"1920x1080", "3840x2160"})
+    private String resolution;
+
+    @Param({"PNG", "JPEG", "BMP"})
+    private ImageFormat format;
+
+    private BufferedImage image;
+    private Path file;
+
+    /**
+     * Renders the image and creates the target file.
+     *
+     * @throws IOException if the temporary file cannot be created
+     */
+    @Setup
+    public void setup() throws IOException {
+        int[] size = BenchmarkFixtures.resolution(resolution);
+        image = new ToneMapper(GAMMA).toImage(
+            BenchmarkFixtures.histogram(size[0], size[1], POINTS, BenchmarkFixtures.SEED)
+        );
+        file = Files.createTempFile("fractal-benchmark", "." + format.name().toLowerCase());
+    }
+
+    /**
+     * Deletes the target file.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Saves the image.
+     */
+    @Benchmark
+    public void save() {
+        ImageUtils.save(image, file, format);
+    }
+}
@@ -0,0 +1,80 @@
+package backend.academy.fractal.benchmark;
+
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.image.ToneMapper;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the post-processing stages: the search of the densest cell,
+ * the gamma correction into a reused buffer and the creation of the final image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToneMappingBenchmark {
+    private static final int POINTS = 2_000;
+    private static final double GAMMA = 2.2;
+
+    @Param({"1920x1080", "3840x2160"})
+    private String resolution;
+
+    private final ToneMapper toneMapper = new ToneMapper(GAMMA);
+    private Histogram histogram;
+    private int[] pixels;
+
+    /**
+     * Fills the histogram.
+     */
+    @Setup
+    public void setup() {
+        int[] size = BenchmarkFixtures.resolution(resolution);
+        histogram = BenchmarkFixtures.histogram(size[0], size[1], POINTS, BenchmarkFixtures.SEED);
+        pixels = new int[histogram.size()];
+    }
+
+    /**
+     * Finds the densest cell, the former getMax stage.
+     *
+     * @return the logarithm of the maximum hit count
+     */
+    @Benchmark
+    public double logMax() {
+        return toneMapper.logMax(histogram);
+    }
+
+    /**
+     * Tone-maps into a reused buffer, the former correction stage.
+     *
+     * @return the buffer
+     */
+    @Benchmark
+    public int[] map() {
+        toneMapper.map(histogram, pixels);
+        return pixels;
+    }
+
+    /**
+     * Tone-maps into a new image, the former generateImage stage.
+     *
+     * @return the image
+     */
+    @Benchmark
+    public BufferedImage toImage() {
+        return toneMapper.toImage(histogram);
+    }
+}
@@ -0,0 +1,93 @@
+package backend.academy.fractal.benchmark;
+
+import backend.academy.fractal.transformations.Transformation;
+import backend.academy.fractal.transformations.nonlinear.BubbleTransformation;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.transformations.nonlinear.ExponentialTransformation;
+import backend.academy.fractal.transformations.nonlinear.FisheyeTransformation;
+import backend.academy.fractal.transformations.nonlinear.RaysTransformation;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a single call of every non-linear transformation.
+ * The call site is made megamorphic on purpose by touching all variations during setup,
+ * which is the situation of the chaos game loop. Run with {@code -prof gc}:
+ * the buffer variant must report {@code gc.alloc.rate.norm} of zero bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformationBenchmark {
+    private static final double STEP = 0.000_1;
+
+    @Param({"diamond", "bubble", "fisheye", "exponential", "rays"})
+    private String variation;
+
+    private Transformation transformation;
+    private final double[] out = new double[2];
+    private double x = 0.3;
+    private double y = -0.4;
+
+    /**
+     * Picks the benchmarked variation and pollutes the type profile with all the others.
+     */
+    @Setup
+    public void setup() {
+        Transformation[] all = {
+            new DiamondTransformation(),
+            new BubbleTransformation(),
+            new FisheyeTransformation(),
+            new ExponentialTransformation(),
+            new RaysTransformation()
+        };
+        for (int i = 0; i < 100_000; i++) {
+            all[i % all.length].transform(x, y, out);
+        }
+        transformation = switch (variation) {
+            case "diamond" -> all[0];
+            case "bubble" -> all[1];
+            case "fisheye" -> all[2];
+            case "exponential" -> all[3];
+            default -> all[4];
+        };
+    }
+
+    /**
+     * Transforms a point into the reusable buffer.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void transformIntoBuffer(Blackhole blackhole) {
+        x += STEP;
+        transformation.transform(x, y, out);
+        blackhole.consume(out[0]);
+        blackhole.consume(out[1]);
+    }
+
+    /**
+     * Transforms a point through the allocating convenience method.
+     *
+     * @return the transformed point
+     */
+    @Benchmark
+    public double[] transformAllocating() {
+        x += STEP;
+        return transformation.transform(x, y);
+    }
+}
@@ -1,24 +1,29 @@
 package backend.academy;
 
-import backend.academy.fractal.image.FractalGenerator;
+import backend.academy.cli.BatchRunner;
+import backend.academy.cli.CliParameters;
+import backend.academy.cli.JobRunner;
+import backend.academy.cli.Manifest;
+import backend.academy.cli.ProgressJournal;
+import backend.academy.cli.RenderJob;
+import backend.academy.fractal.checkpoint.HistogramFile;
 import backend.academy.fractal.image.ImageFormat;
-import backend.academy.fractal.image.ImageUtils;
-import backend.academy.fractal.transformations.Transformation;
-import backend.academy.fractal.transformations.linear.AffineTransformations;
-import backend.academy.fractal.transformations.nonlinear.BubbleTransformation;
-import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
-import backend.academy.fractal.transformations.nonlinear.ExponentialTransformation;
-import backend.academy.fractal.transformations.nonlinear.FisheyeTransformation;
-import backend.academy.fractal.transformations.nonlinear.RaysTransformation;
-import backend.academy.fractal.units.AffineMatrix;
-import java.awt.image.BufferedImage;
+import backend.academy.fractal.image.RenderScheduler;
+import backend.academy.server.RenderCache;
+import backend.academy.server.RenderServer;
+import backend.academy.server.RenderService;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Paths;
-import java.security.SecureRandom;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 
@@ -26,71 +31,166 @@ import lombok.extern.slf4j.Slf4j;
  * Main class for generating fractal images based on user input.
  * This class handles the command line interface for gathering parameters
  * and generating the fractal image using the specified transformations and parameters.
+ * The parameters are prompted for unless they are given as flags; a manifest of jobs
+ * is rendered one after another in the same JVM, skipping the jobs already in the journal,
+ * with --serve the application runs as an HTTP render service,
+ * with --merge it adds up saved histograms of the same flame instead of rendering,
+ * and with --retone it tone-maps a saved histogram again.
  */
 @Slf4j @UtilityClass
 public class Main {
-    private static final int TRANSFORMATIONS_COUNT = 5;
-    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final long BYTES_PER_MEGABYTE = 1L << 20;
     private static int stage = 1;
 
     /**
      * Entry point of the application.
      *
-     * @param args command line arguments (not used)
+     * @param args command line arguments, see {@link CliParameters}
      */
     public static void main(String[] args) {
         PrintStream output = System.out;
-        printUsage(output);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        CliParameters parameters = new CliParameters();
+        JCommander commander = JCommander.newBuilder()
+            .addObject(parameters)
+            .build();
+        try {
+            commander.parse(args);
+        } catch (ParameterException e) {
+            output.println(e.getMessage());
+            return;
+        }
+        if (parameters.help()) {
+            commander.usage();
+            return;
+        }
+
         try {
-            printStage(output);
-            int width = Integer.parseInt(reader.readLine());
-
-            printStage(output);
-            int height = Integer.parseInt(reader.readLine());
-
-            printStage(output);
-            int nonLinearTransformations = Integer.parseInt(reader.readLine());
-            Transformation transformation = getTransformation(nonLinearTransformations);
-
-            printStage(output);
-            int iterations = Integer.parseInt(reader.readLine());
-
-            printStage(output);
-            int points = Integer.parseInt(reader.readLine());
-
-            printStage(output);
-            int matrices = Integer.parseInt(reader.readLine());
-            AffineMatrix[] affineMatrices = new AffineMatrix[matrices];
-            if (matrices == 0) {
-                int randomIndex = RANDOM.nextInt(TRANSFORMATIONS_COUNT);
-                affineMatrices = new AffineTransformations().getTransformation(randomIndex);
-            } else {
-                for (int i = 0; i < nonLinearTransformations; i++) {
-                    output.println("Enter the affine transformation matrix:");
-                    affineMatrices[i] = fillMatrix(reader);
-                }
+            if (parameters.serve() != null) {
+                serve(parameters, output);
+                return;
+            }
+            if (!parameters.merge().isEmpty()) {
+                merge(parameters, output);
+                return;
             }
+            JobRunner runner = new JobRunner(parameters);
+            if (parameters.retone() != null) {
+                Path target = Path.of(parameters.output() == null
+                    ? "fractal." + parameters.format().name().toLowerCase(Locale.ROOT)
+                    : parameters.output());
+                runner.retone(parameters.retone(), target, parameters.format());
+                output.println("The fractal has been tone-mapped again at " + target);
+                return;
+            }
+            if (parameters.manifest() != null) {
+                Path journal = parameters.journal() == null
+                    ? parameters.manifest().resolveSibling(parameters.manifest().getFileName() + ".journal")
+                    : parameters.journal();
+                List<RenderJob> jobs = Manifest.read(parameters.manifest());
+                int rendered = new BatchRunner(runner, new ProgressJournal(journal), output).run(jobs);
+                output.println(rendered + " of " + jobs.size() + " fractals have been generated");
+                return;
+            }
+            RenderJob job = parameters.hasJob() ? parameters.job() : promptJob(parameters, output);
+            runner.run(job);
+            output.println("The fractal has been generated at " + job.output());
+        } catch (IOException | IllegalArgumentException e) {
+            output.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Starts the HTTP render service, which runs until the JVM is stopped.
+     *
+     * @param parameters the command line options
+     * @param output     the output stream to print the address to
+     * @throws IOException if the port cannot be bound or the cache directory cannot be created
+     */
+    private static void serve(CliParameters parameters, PrintStream output) throws IOException {
+        RenderCache cache = parameters.cacheMemory() > 0
+            ? new RenderCache(parameters.cacheMemory() * BYTES_PER_MEGABYTE, parameters.cacheDir())
+            : null;
+        RenderService service = new RenderService(
+            RenderScheduler.shared(),
+            parameters.serverWorkers(),
+            parameters.queueCapacity(),
+            parameters.maxPixels(),
+            parameters.maxSteps(),
+            cache
+        );
+        RenderServer server = new RenderServer(new InetSocketAddress(parameters.serve()), service);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        output.println("Serving renders on port " + server.port());
+    }
+
+    /**
+     * Adds up the saved histograms given with --merge into the file given with --output.
+     *
+     * @param parameters the command line options
+     * @param output     the output stream to print the result to
+     * @throws IOException if a histogram cannot be read or the merged one cannot be written
+     */
+    private static void merge(CliParameters parameters, PrintStream output) throws IOException {
+        if (parameters.output() == null) {
+            throw new IllegalArgumentException("--merge needs the --output file of the merged histogram");
+        }
+        HistogramFile.merge(parameters.merge()).write(Path.of(parameters.output()));
+        output.println(parameters.merge().size() + " histograms have been merged into " + parameters.output());
+    }
 
-            printStage(output);
-            int symmetry = Integer.parseInt(reader.readLine());
+    /**
+     * Asks for the parameters of a single render on the standard input.
+     *
+     * @param parameters the command line options
+     * @param output     the output stream to print the prompts to
+     * @return the job described by the answers
+     * @throws IOException if the standard input cannot be read
+     */
+    private static RenderJob promptJob(CliParameters parameters, PrintStream output) throws IOException {
+        printUsage(output);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        printStage(output);
+        int width = Integer.parseInt(reader.readLine());
 
-            printStage(output);
-            int threads = Integer.parseInt(reader.readLine());
+        printStage(output);
+        int height = Integer.parseInt(reader.readLine());
 
-            printStage(output);
-            int format = Integer.parseInt(reader.readLine());
+        printStage(output);
+        int transformation = Integer.parseInt(reader.readLine());
 
-            printStage(output);
-            FractalGenerator generator = new FractalGenerator(width, height, transformation);
-            BufferedImage image = generator.generateFractal(iterations, points, affineMatrices, symmetry, threads);
-            generateImage(image, format);
+        printStage(output);
+        int iterations = Integer.parseInt(reader.readLine());
 
-            output.println("The fractal has been generated at fractal.[extension]");
+        printStage(output);
+        int points = Integer.parseInt(reader.readLine());
 
-        } catch (IOException | NumberFormatException e) {
-            output.println(e.getMessage());
+        printStage(output);
+        int matrixCount = Integer.parseInt(reader.readLine());
+        List<String> matrices = new ArrayList<>();
+        for (int i = 0; i < matrixCount; i++) {
+            output.println("Enter the affine transformation matrix:");
+            matrices.add(reader.readLine());
         }
+
+        printStage(output);
+        String symmetry = reader.readLine();
+
+        printStage(output);
+        int threads = Integer.parseInt(reader.readLine());
+
+        printStage(output);
+        ImageFormat format = switch (Integer.parseInt(reader.readLine())) {
+            case 1 -> ImageFormat.PNG;
+            case 2 -> ImageFormat.JPEG;
+            default -> ImageFormat.BMP;
+        };
+
+        printStage(output);
+        return new RenderJob(
+            null, width, height, transformation, iterations, points, matrices, symmetry, threads, format,
+            parameters.seed()
+        );
     }
 
     /**
@@ -100,7 +200,8 @@ public class Main {
      */
     private static void printUsage(PrintStream output) {
         output.println("""
-            To generate a fractal image, provide the following arguments:
+            To generate a fractal image, provide the following arguments
+            (or pass them as flags, or pass a manifest of jobs with --manifest, see --help):
             1. The width of the image in pixels
             2. The height of the image in pixels
             3. Desired non-linear transformation (enter the number):
@@ -114,9 +215,12 @@ public class Main {
             5. The number of points to generate in the fractal
             6. The number of N transformations to use in the fractal
                 6.1 N transformations to use in the fractal in the format:
-                a b c d e f r g b
-                (if N == 0, random N will be chosen from the predetermined list)
-            7. The symmetry coefficient of the fractal
+                a b c d e f r g b [weight]
+                (the optional weight is how often the matrix is picked relative to the others, 1 by default;
+                if N == 0, random N will be chosen from the predetermined list)
+            7. The symmetry of the fractal:
+                N or CN - N rotations
+                DN - N rotations and their mirror images
             8. The number of threads to use for generating the fractal
             9. Format:
                 1. PNG
@@ -125,56 +229,6 @@ public class Main {
             """);
     }
 
-    /**
-     * Returns a Transformation object based on the specified index.
-     *
-     * @param index the index of the desired transformation
-     * @return the Transformation object corresponding to the specified index
-     */
-    @SuppressWarnings("checkstyle:MagicNumber")
-    private static Transformation getTransformation(int index) {
-        int randomIndex = index;
-        if (randomIndex == 0) {
-            randomIndex = RANDOM.nextInt(TRANSFORMATIONS_COUNT) + 1;
-        }
-        return switch (randomIndex) {
-            case 1 -> new DiamondTransformation();
-            case 2 -> new BubbleTransformation();
-            case 3 -> new FisheyeTransformation();
-            case 4 -> new ExponentialTransformation();
-            default -> new RaysTransformation();
-        };
-    }
-
-    /**
-     * Reads and returns an AffineMatrix object from the provided BufferedReader.
-     *
-     * @param reader the BufferedReader to read the matrix from
-     * @return the AffineMatrix object read from the input
-     */
-    @SuppressWarnings("checkstyle:MagicNumber")
-    private static AffineMatrix fillMatrix(BufferedReader reader) {
-        try {
-            String unparsedMatrix = reader.readLine();
-            if (unparsedMatrix != null) {
-                String[] affineTransformation = unparsedMatrix.split(" ");
-                double a = Double.parseDouble(affineTransformation[0]);
-                double b = Double.parseDouble(affineTransformation[1]);
-                double c = Double.parseDouble(affineTransformation[2]);
-                double d = Double.parseDouble(affineTransformation[3]);
-                double e = Double.parseDouble(affineTransformation[4]);
-                double f = Double.parseDouble(affineTransformation[5]);
-                int red = Integer.parseInt(affineTransformation[6]);
-                int green = Integer.parseInt(affineTransformation[7]);
-                int blue = Integer.parseInt(affineTransformation[8]);
-                return new AffineMatrix(a, b, c, d, e, f, red, green, blue);
-            }
-        } catch (IOException e) {
-            return new AffineTransformations().getTransformation(RANDOM.nextInt(TRANSFORMATIONS_COUNT))[0];
-        }
-        return new AffineTransformations().getTransformation(RANDOM.nextInt(TRANSFORMATIONS_COUNT))[0];
-    }
-
     /**
      * Prints the current stage of input required from the user.
      *
@@ -208,7 +262,7 @@ public class Main {
                 stage++;
                 break;
             case 7:
-                output.println("7. Enter the symmetry coefficient of the fractal:");
+                output.println("7. Enter the symmetry of the fractal (N, CN or DN):");
                 stage++;
                 break;
             case 8:
@@ -223,23 +277,4 @@ public class Main {
                 output.println("Generating fractal...");
         }
     }
-
-    /**
-     * Prints the current stage of input required from the user.
-     *
-     * @param image the BufferedImage object to save
-     * @param index the index of the image format to save the image in
-     */
-    private static void generateImage(BufferedImage image, int index) {
-        switch (index) {
-            case 1:
-                ImageUtils.save(image, Paths.get("fractal.png"), ImageFormat.PNG);
-                break;
-            case 2:
-                ImageUtils.save(image, Paths.get("fractal.jpeg"), ImageFormat.JPEG);
-                break;
-            default:
-                ImageUtils.save(image, Paths.get("fractal.bmp"), ImageFormat.BMP);
-        }
-    }
 }
@@ -0,0 +1,56 @@
+package backend.academy.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The BatchRunner class renders the jobs of a manifest one after another in the same JVM,
+ * so the pools, the JIT-compiled render loop and the buffers are warm for every job after the first.
+ * Finished jobs are recorded in a progress journal, and jobs found there are skipped,
+ * which lets an interrupted batch continue where it stopped.
+ */
+public final class BatchRunner {
+    private final JobRunner runner;
+    private final ProgressJournal journal;
+    private final PrintStream output;
+
+    /**
+     * Constructs a BatchRunner.
+     *
+     * @param runner  the runner rendering the jobs
+     * @param journal the journal of finished jobs
+     * @param output  the stream progress messages are printed to
+     */
+    public BatchRunner(JobRunner runner, ProgressJournal journal, PrintStream output) {
+        this.runner = runner;
+        this.journal = journal;
+        this.output = output;
+    }
+
+    /**
+     * Renders the jobs that are not finished yet.
+     *
+     * @param jobs the jobs of the manifest
+     * @return the number of jobs rendered by this run
+     * @throws IOException if a job or the journal fails
+     */
+    public int run(List<RenderJob> jobs) throws IOException {
+        int rendered = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            RenderJob job = jobs.get(i);
+            if (journal.isCompleted(job)) {
+                output.printf("[%d/%d] %s is already rendered%n", i + 1, jobs.size(), job.output());
+                continue;
+            }
+            long start = System.nanoTime();
+            runner.run(job);
+            journal.markCompleted(job);
+            rendered++;
+            long millis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            output.printf("[%d/%d] %s rendered in %d ms%n", i + 1, jobs.size(), job.output(), millis);
+        }
+        return rendered;
+    }
+}
@@ -0,0 +1,219 @@
+package backend.academy.cli;
+
+import backend.academy.fractal.image.AccumulationMode;
+import backend.academy.fractal.image.DownsamplingFilter;
+import backend.academy.fractal.image.ImageFormat;
+import backend.academy.fractal.image.PngFilter;
+import com.beust.jcommander.Parameter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import lombok.Getter;
+
+/**
+ * The CliParameters class holds the command line options of the application.
+ * The job options describe a single render and make the application skip the prompts;
+ * the other options apply to every render, including the jobs of a batch manifest.
+ * The server options run the application as an HTTP render service instead.
+ */
+@Getter
+public class CliParameters {
+    private static final long DEFAULT_CHECKPOINT_INTERVAL = 300;
+    private static final double DEFAULT_DENSITY_CURVE = 0.4;
+    private static final double DEFAULT_GAMMA = 2.2;
+    private static final int DEFAULT_SERVER_WORKERS = 2;
+    private static final int DEFAULT_QUEUE_CAPACITY = 16;
+    private static final long DEFAULT_MAX_PIXELS = 4096L * 4096;
+    private static final long DEFAULT_MAX_STEPS = 10_000_000_000L;
+    private static final long DEFAULT_CACHE_MEMORY = 256;
+
+    @Parameter(names = "--help", help = true, description = "Print the options")
+    private boolean help;
+
+    @Parameter(names = "--width", description = "Width of the image in pixels, renders without prompts")
+    private Integer width;
+
+    @Parameter(names = "--height", description = "Height of the image in pixels")
+    private Integer height;
+
+    @Parameter(
+        names = "--transformation",
+        description = "Non-linear transformation: 1 Diamond, 2 Bubble, 3 Fisheye, 4 Exponential, 5 Rays, 0 random"
+    )
+    private int transformation;
+
+    @Parameter(names = "--iterations", description = "Number of iterations of every point")
+    private int iterations = RenderJob.DEFAULT_ITERATIONS;
+
+    @Parameter(names = "--points", description = "Number of points")
+    private int points = RenderJob.DEFAULT_POINTS;
+
+    @Parameter(
+        names = "--matrix",
+        description = "Affine matrix as \"a b c d e f red green blue [weight]\", repeatable; a random set if omitted"
+    )
+    private List<String> matrices = new ArrayList<>();
+
+    @Parameter(names = "--symmetry", description = "Symmetry of the fractal: N, CN or DN")
+    private String symmetry = "1";
+
+    @Parameter(names = "--threads", description = "Number of threads, the number of processors by default")
+    private int threads;
+
+    @Parameter(names = "--format", description = "Format of the image: PNG, JPEG or BMP")
+    private ImageFormat format = ImageFormat.PNG;
+
+    @Parameter(
+        names = "--png-filter",
+        description = "Scanline filter of PNG images: NONE, SUB, UP, AVERAGE, PAETH or ADAPTIVE"
+    )
+    private PngFilter pngFilter = PngFilter.NONE;
+
+    @Parameter(names = "--png-level", description = "Compression level of PNG images from 0 to 9, -1 for the default")
+    private int pngLevel = Deflater.DEFAULT_COMPRESSION;
+
+    @Parameter(names = "--output", description = "File the image is written to, fractal.[extension] by default")
+    private String output;
+
+    @Parameter(names = "--manifest", description = "JSON or CSV manifest of jobs rendered one after another")
+    private Path manifest;
+
+    @Parameter(
+        names = "--journal",
+        description = "Progress journal of the manifest, [manifest].journal by default"
+    )
+    private Path journal;
+
+    @Parameter(names = "--serve", description = "Port to serve renders over HTTP on instead of rendering once")
+    private Integer serve;
+
+    @Parameter(names = "--server-workers", description = "Number of renders the server runs at the same time")
+    private int serverWorkers = DEFAULT_SERVER_WORKERS;
+
+    @Parameter(
+        names = "--queue-capacity",
+        description = "Number of renders the server queues before it rejects new ones"
+    )
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    @Parameter(names = "--max-pixels", description = "Largest image the server renders, in pixels")
+    private long maxPixels = DEFAULT_MAX_PIXELS;
+
+    @Parameter(names = "--max-steps", description = "Largest number of points times iterations the server renders")
+    private long maxSteps = DEFAULT_MAX_STEPS;
+
+    @Parameter(
+        names = "--cache-memory",
+        description = "Megabytes of seeded renders the server keeps in memory, 0 renders every request"
+    )
+    private long cacheMemory = DEFAULT_CACHE_MEMORY;
+
+    @Parameter(names = "--cache-dir", description = "Directory the server keeps every seeded render in")
+    private Path cacheDir;
+
+    @Parameter(names = "--seed", description = "Seed of the random generator, makes renders reproducible")
+    private Long seed;
+
+    @Parameter(
+        names = "--accumulation",
+        description = "How worker threads accumulate hits: PER_THREAD, the default, or SHARED"
+    )
+    private AccumulationMode accumulation;
+
+    @Parameter(names = "--time-limit", description = "Maximum number of seconds spent on the chaos game")
+    private Long timeLimit;
+
+    @Parameter(names = "--supersample", description = "Number of histogram cells per pixel along each axis")
+    private int supersample = 1;
+
+    @Parameter(
+        names = "--filter",
+        description = "Filter reducing a supersampled histogram: BOX, TENT, GAUSSIAN or LANCZOS"
+    )
+    private DownsamplingFilter filter = DownsamplingFilter.GAUSSIAN;
+
+    @Parameter(
+        names = "--de-radius",
+        description = "Blur radius of density estimation for a single hit, 0 turns density estimation off; "
+            + "not available with --off-heap or --histogram-file"
+    )
+    private double densityRadius;
+
+    @Parameter(names = "--de-curve", description = "How fast the density estimation radius shrinks with density")
+    private double densityCurve = DEFAULT_DENSITY_CURVE;
+
+    @Parameter(names = "--gamma", description = "Gamma correction of the tone mapping")
+    private double gamma = DEFAULT_GAMMA;
+
+    @Parameter(names = "--brightness", description = "Factor of every color after tone mapping")
+    private double brightness = 1.0;
+
+    @Parameter(
+        names = "--white-density",
+        description = "Number of hits shown at full brightness, 0 normalizes to the densest pixel"
+    )
+    private double whiteDensity;
+
+    @Parameter(
+        names = "--retone",
+        description = "Saved histogram to tone-map again into --output instead of rendering"
+    )
+    private Path retone;
+
+    @Parameter(
+        names = "--off-heap",
+        description = "Keep the histogram in native memory outside the heap, for PNG output only"
+    )
+    private boolean offHeap;
+
+    @Parameter(
+        names = "--histogram-file",
+        description = "Scratch file the histogram is memory-mapped from, for PNG renders larger than the memory"
+    )
+    private Path histogramFile;
+
+    @Parameter(
+        names = "--save-histogram",
+        description = "Also save the accumulated histogram next to the image as [output].hist"
+    )
+    private boolean saveHistogram;
+
+    @Parameter(
+        names = "--merge",
+        description = "Saved histogram of the same flame to add up into --output instead of rendering, repeatable"
+    )
+    private List<Path> merge = new ArrayList<>();
+
+    @Parameter(names = "--checkpoint", description = "File the progress of the render is periodically saved to")
+    private Path checkpoint;
+
+    @Parameter(names = "--checkpoint-interval", description = "Number of seconds between two checkpoints")
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    @Parameter(names = "--resume", description = "Continue the render saved in the checkpoint file")
+    private boolean resume;
+
+    /**
+     * Checks whether the job options were given, so no prompts are needed.
+     *
+     * @return true if the width of the image was given
+     */
+    public boolean hasJob() {
+        return width != null;
+    }
+
+    /**
+     * Builds the job described by the job options.
+     *
+     * @return the job
+     */
+    public RenderJob job() {
+        if (width == null || height == null) {
+            throw new IllegalArgumentException("Both --width and --height are required");
+        }
+        return new RenderJob(
+            output, width, height, transformation, iterations, points, matrices, symmetry, threads, format, seed
+        );
+    }
+}
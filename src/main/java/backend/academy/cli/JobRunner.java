@@ -0,0 +1,226 @@
+package backend.academy.cli;
+
+import backend.academy.fractal.checkpoint.CheckpointedRender;
+import backend.academy.fractal.checkpoint.HistogramFile;
+import backend.academy.fractal.image.AccumulationMode;
+import backend.academy.fractal.image.ConcurrentHistogram;
+import backend.academy.fractal.image.DensityEstimator;
+import backend.academy.fractal.image.Downsampler;
+import backend.academy.fractal.image.FractalGenerator;
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.image.ImageFormat;
+import backend.academy.fractal.image.ImageUtils;
+import backend.academy.fractal.image.PngWriter;
+import backend.academy.fractal.image.RenderOptions;
+import backend.academy.fractal.image.RenderResult;
+import backend.academy.fractal.image.RenderScheduler;
+import backend.academy.fractal.image.SegmentHistogram;
+import backend.academy.fractal.image.ToneMapper;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.units.AffineMatrix;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The JobRunner class renders jobs with the rendering options of the command line.
+ * All jobs share the render scheduler of the application, and a runner that renders several jobs
+ * with shared accumulation reuses one histogram for all jobs of the same size.
+ */
+public final class JobRunner {
+    private static final String HISTOGRAM_SUFFIX = ".hist";
+    private final CliParameters parameters;
+    private final RenderScheduler scheduler;
+    private final DensityEstimator densityEstimator;
+    private final ToneMapper toneMapper;
+    private ConcurrentHistogram buffer;
+
+    /**
+     * Constructs a JobRunner.
+     *
+     * @param parameters the command line options applied to every job
+     */
+    public JobRunner(CliParameters parameters) {
+        this.parameters = parameters;
+        this.scheduler = RenderScheduler.shared();
+        this.densityEstimator = parameters.densityRadius() > 0
+            ? new DensityEstimator(parameters.densityRadius(), parameters.densityCurve())
+            : null;
+        this.toneMapper = new ToneMapper(parameters.gamma(), parameters.brightness(), parameters.whiteDensity());
+    }
+
+    /**
+     * Renders a job and writes the image to its output file.
+     * A PNG image is tone-mapped straight into the file band by band and compressed in parallel,
+     * the other formats go through a BufferedImage and ImageIO.
+     * With --save-histogram the raw histogram is saved next to the image, see {@link #histogramPath(RenderJob)}.
+     *
+     * @param job the job to render
+     * @throws IOException if the image, a checkpoint or a histogram file cannot be written or read
+     */
+    public void run(RenderJob job) throws IOException {
+        checkOptions(job);
+        RandomSource random = job.random();
+        FractalGenerator generator = new FractalGenerator(job.width(), job.height(),
+            job.createTransformation(random), random, scheduler, densityEstimator, toneMapper);
+        AffineMatrix[] matrices = job.createMatrices(random);
+        if (parameters.histogramFile() != null || parameters.offHeap()) {
+            // the image is written before the histogram releases its memory
+            try (SegmentHistogram histogram = parameters.histogramFile() == null
+                ? SegmentHistogram.allocate(job.width(), job.height())
+                : SegmentHistogram.map(job.width(), job.height(), parameters.histogramFile())) {
+                RenderOptions options = RenderOptions.threads(job.threads()).withHistogram(histogram);
+                save(job, generator, matrices, generator.accumulate(
+                    job.iterations(), job.points(), matrices, job.symmetryGroup(), options));
+            }
+            return;
+        }
+        save(job, generator, matrices, accumulate(job, generator, matrices));
+    }
+
+    /**
+     * Tone-maps a saved histogram again with the tone mapping and density estimation options of the runner,
+     * without running the chaos game.
+     *
+     * @param source the histogram file, see {@link #histogramPath(RenderJob)}
+     * @param target the image file to write
+     * @param format the format of the image
+     * @throws IOException if the histogram cannot be read or the image cannot be written
+     */
+    public void retone(Path source, Path target, ImageFormat format) throws IOException {
+        Histogram histogram = HistogramFile.read(source).histogram();
+        Histogram estimated = densityEstimator == null ? histogram : densityEstimator.estimate(histogram);
+        if (format == ImageFormat.PNG) {
+            try (PngWriter writer = new PngWriter(target, histogram.width(), histogram.height(),
+                parameters.pngLevel(), parameters.pngFilter(), scheduler.executor())) {
+                toneMapper.write(estimated, writer, scheduler.executor());
+            }
+        } else {
+            ImageUtils.save(toneMapper.toImage(estimated), target, format);
+        }
+    }
+
+    /**
+     * Runs the chaos game of a job with the rendering options of the runner.
+     *
+     * @param job       the job to render
+     * @param generator the generator of the job
+     * @param matrices  the affine matrices of the job
+     * @return the accumulated histogram with its seed and number of points
+     * @throws IOException if a checkpoint cannot be read
+     */
+    private RenderResult accumulate(RenderJob job, FractalGenerator generator, AffineMatrix[] matrices)
+        throws IOException {
+        AccumulationMode mode = parameters.accumulation() == null ? AccumulationMode.PER_THREAD
+            : parameters.accumulation();
+        RenderOptions options = RenderOptions.threads(job.threads()).withMode(mode);
+        if (parameters.checkpoint() != null) {
+            options = options.withCheckpoints(new CheckpointedRender(
+                parameters.checkpoint(), Duration.ofSeconds(parameters.checkpointInterval()), parameters.resume()));
+        } else if (parameters.supersample() > 1) {
+            options = options.withDownsampler(new Downsampler(parameters.filter(), parameters.supersample()));
+        } else if (parameters.timeLimit() != null) {
+            options = options.withTimeBudget(Duration.ofSeconds(parameters.timeLimit()));
+        } else if (mode == AccumulationMode.SHARED && job.threads() > 1) {
+            options = options.withHistogram(buffer(job.width(), job.height()));
+        }
+        return generator.accumulate(job.iterations(), job.points(), matrices, job.symmetryGroup(), options);
+    }
+
+    /**
+     * Rejects rendering options that cannot be honored together, instead of silently ignoring one of them.
+     * A checkpointed, a supersampled and an off-heap render each run their own way,
+     * and a supersampled or an off-heap render always accumulates into one shared histogram.
+     * Density estimation writes a second histogram on the heap, which an off-heap render is meant to avoid,
+     * and every format but PNG builds the whole image on the heap before writing it.
+     *
+     * @param job the job to render
+     */
+    private void checkOptions(RenderJob job) {
+        boolean offHeap = parameters.histogramFile() != null || parameters.offHeap();
+        String offHeapOption = parameters.histogramFile() != null ? "--histogram-file" : "--off-heap";
+        boolean supersampled = parameters.supersample() > 1;
+        boolean checkpointed = parameters.checkpoint() != null;
+        boolean timeLimited = parameters.timeLimit() != null;
+        boolean accumulation = parameters.accumulation() != null;
+        // a downsampled histogram holds fractional hits, which the file format rounds
+        rejectTogether(parameters.saveHistogram() && supersampled, "--save-histogram", "--supersample");
+        rejectTogether(checkpointed && supersampled, "--checkpoint", "--supersample");
+        rejectTogether(checkpointed && timeLimited, "--checkpoint", "--time-limit");
+        rejectTogether(supersampled && timeLimited, "--supersample", "--time-limit");
+        rejectTogether(supersampled && accumulation, "--supersample", "--accumulation");
+        rejectTogether(offHeap && checkpointed, offHeapOption, "--checkpoint");
+        rejectTogether(offHeap && supersampled, offHeapOption, "--supersample");
+        rejectTogether(offHeap && timeLimited, offHeapOption, "--time-limit");
+        rejectTogether(offHeap && accumulation, offHeapOption, "--accumulation");
+        rejectTogether(offHeap && parameters.densityRadius() > 0, offHeapOption, "--de-radius");
+        if (offHeap && job.format() != ImageFormat.PNG) {
+            throw new IllegalArgumentException(offHeapOption + " can only write PNG images, not " + job.format());
+        }
+    }
+
+    /**
+     * Throws if two options that cannot be combined were both given.
+     *
+     * @param given  true if both options were given
+     * @param first  the first option
+     * @param second the second option
+     */
+    private static void rejectTogether(boolean given, String first, String second) {
+        if (given) {
+            throw new IllegalArgumentException(first + " cannot be combined with " + second);
+        }
+    }
+
+    /**
+     * Returns the file the histogram of a job is saved to: the output file of the job with an extra suffix.
+     *
+     * @param job the job
+     * @return the histogram file of the job
+     */
+    public static Path histogramPath(RenderJob job) {
+        return job.outputPath().resolveSibling(job.outputPath().getFileName() + HISTOGRAM_SUFFIX);
+    }
+
+    /**
+     * Writes the image of an accumulated histogram to the output file of a job,
+     * and the histogram itself if the runner saves histograms.
+     * A saved histogram records the seed and the number of points the render actually used,
+     * which differ from those of the job when the render was resumed or ran out of time.
+     *
+     * @param job       the job
+     * @param generator the generator of the job
+     * @param matrices  the affine matrices of the job
+     * @param render    the accumulated histogram with its seed and number of points
+     * @throws IOException if the image or the histogram cannot be written
+     */
+    private void save(RenderJob job, FractalGenerator generator, AffineMatrix[] matrices, RenderResult render)
+        throws IOException {
+        Histogram histogram = render.histogram();
+        if (parameters.saveHistogram()) {
+            long fingerprint = generator.fingerprint(job.iterations(), matrices, job.symmetryGroup());
+            new HistogramFile(fingerprint, render.seed(), render.points(), histogram).write(histogramPath(job));
+        }
+        if (job.format() == ImageFormat.PNG) {
+            generator.writePng(histogram, job.outputPath(), parameters.pngFilter(), parameters.pngLevel());
+        } else {
+            ImageUtils.save(generator.toImage(histogram), job.outputPath(), job.format());
+        }
+    }
+
+    /**
+     * Returns the shared histogram of the runner emptied, allocating it only when the size changes.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     * @return an empty histogram of the given size
+     */
+    private ConcurrentHistogram buffer(int width, int height) {
+        if (buffer == null || buffer.width() != width || buffer.height() != height) {
+            buffer = new ConcurrentHistogram(width, height);
+        } else {
+            buffer.clear();
+        }
+        return buffer;
+    }
+}
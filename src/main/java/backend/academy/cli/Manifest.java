@@ -0,0 +1,144 @@
+package backend.academy.cli;
+
+import backend.academy.fractal.image.ImageFormat;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Utility class reading the jobs of a batch manifest.
+ * A JSON manifest is an array of objects with the components of {@link RenderJob} as keys.
+ * A CSV manifest has a header line with the same names and one job per line;
+ * its matrices column holds the matrices separated by semicolons.
+ * Missing iterations and points take the same defaults as on the command line.
+ */
+public final class Manifest {
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+        .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+        .build();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Manifest() {
+    }
+
+    /**
+     * Reads the jobs of a manifest, choosing the format by the file extension.
+     * Every job must have its own output file.
+     *
+     * @param path the manifest file, .json or .csv
+     * @return the jobs in the order of the manifest
+     * @throws IOException if the manifest cannot be read
+     */
+    public static List<RenderJob> read(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        List<RenderJob> jobs;
+        if (name.endsWith(".json")) {
+            jobs = MAPPER.readValue(path.toFile(), new TypeReference<List<RenderJob>>() {
+            });
+        } else if (name.endsWith(".csv")) {
+            jobs = readCsv(Files.readAllLines(path, StandardCharsets.UTF_8));
+        } else {
+            throw new IllegalArgumentException("A manifest must be a .json or a .csv file: " + path);
+        }
+        Set<String> outputs = new HashSet<>();
+        for (RenderJob job : jobs) {
+            if (!outputs.add(job.output())) {
+                throw new IllegalArgumentException("Several jobs write to " + job.output());
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Parses the lines of a CSV manifest.
+     *
+     * @param lines the lines, starting with the header
+     * @return the jobs
+     */
+    static List<RenderJob> readCsv(List<String> lines) {
+        List<RenderJob> jobs = new ArrayList<>();
+        if (lines.isEmpty()) {
+            return jobs;
+        }
+        String[] header = split(lines.getFirst());
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] values = split(line);
+            if (values.length > header.length) {
+                throw new IllegalArgumentException("Too many values in manifest line: " + line);
+            }
+            Map<String, String> job = new HashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                if (!values[i].isEmpty()) {
+                    job.put(header[i], values[i]);
+                }
+            }
+            jobs.add(toJob(job));
+        }
+        return jobs;
+    }
+
+    /**
+     * Builds a job from the values of a CSV line.
+     *
+     * @param job the non-empty values of the line by column name
+     * @return the job
+     */
+    private static RenderJob toJob(Map<String, String> job) {
+        String matrices = job.get("matrices");
+        String format = job.get("format");
+        String seed = job.get("seed");
+        return new RenderJob(
+            job.get("output"),
+            intValue(job, "width"),
+            intValue(job, "height"),
+            intValue(job, "transformation"),
+            intValue(job, "iterations"),
+            intValue(job, "points"),
+            matrices == null ? List.of() : Arrays.stream(matrices.split(";")).map(String::trim).toList(),
+            job.get("symmetry"),
+            intValue(job, "threads"),
+            format == null ? null : ImageFormat.valueOf(format.toUpperCase(Locale.ROOT)),
+            seed == null ? null : Long.valueOf(seed)
+        );
+    }
+
+    /**
+     * Reads an integer column.
+     *
+     * @param job the values of the line by column name
+     * @param key the column name
+     * @return the value, or 0 if the column is empty
+     */
+    private static int intValue(Map<String, String> job, String key) {
+        String value = job.get(key);
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    /**
+     * Splits a CSV line into trimmed values.
+     *
+     * @param line the line
+     * @return the values
+     */
+    private static String[] split(String line) {
+        return Arrays.stream(line.split(",", -1)).map(String::trim).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,93 @@
+package backend.academy.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * The ProgressJournal class records the jobs of a batch that are finished.
+ * Every finished job appends the name of its output file and a hash of its content as a line
+ * and forces it to the disk, so after a crash the journal lists exactly the images that were completely written,
+ * and a restarted batch skips them. A job whose output is in the journal but whose size, sample budget,
+ * transformations, format or seed were edited since is rendered again.
+ */
+public final class ProgressJournal {
+    private final Path path;
+    private final Set<String> completed;
+
+    /**
+     * Opens the journal, reading the jobs finished by earlier runs.
+     *
+     * @param path the journal file, created on the first finished job
+     * @throws IOException if an existing journal cannot be read
+     */
+    public ProgressJournal(Path path) throws IOException {
+        this.path = path;
+        this.completed = Files.exists(path)
+            ? new HashSet<>(Files.readAllLines(path, StandardCharsets.UTF_8))
+            : new HashSet<>();
+    }
+
+    /**
+     * Checks whether a job was finished.
+     *
+     * @param job the job
+     * @return true if the job is recorded in the journal with the same content
+     */
+    public boolean isCompleted(RenderJob job) {
+        return completed.contains(entry(job));
+    }
+
+    /**
+     * Records a finished job.
+     *
+     * @param job the finished job
+     * @throws IOException if the journal cannot be written
+     */
+    public void markCompleted(RenderJob job) throws IOException {
+        try (FileChannel channel = FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+        )) {
+            channel.write(ByteBuffer.wrap((entry(job) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        completed.add(entry(job));
+    }
+
+    /**
+     * Formats the line of a job: its output and a SHA-256 hash of everything that decides its image.
+     * The number of threads is left out, since it does not change the image.
+     *
+     * @param job the job
+     * @return the line of the job, without the line separator
+     */
+    private static String entry(RenderJob job) {
+        String content = String.join("\n",
+            job.output(),
+            Integer.toString(job.width()),
+            Integer.toString(job.height()),
+            Integer.toString(job.transformation()),
+            Integer.toString(job.iterations()),
+            Integer.toString(job.points()),
+            String.join(";", job.matrices()),
+            job.symmetry(),
+            job.format().name(),
+            String.valueOf(job.seed())
+        );
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return job.output() + '\t' + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
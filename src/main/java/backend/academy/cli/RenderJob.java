@@ -0,0 +1,171 @@
+package backend.academy.cli;
+
+import backend.academy.fractal.image.ImageFormat;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.transformations.Transformation;
+import backend.academy.fractal.transformations.linear.AffineTransformations;
+import backend.academy.fractal.transformations.nonlinear.BubbleTransformation;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.transformations.nonlinear.ExponentialTransformation;
+import backend.academy.fractal.transformations.nonlinear.FisheyeTransformation;
+import backend.academy.fractal.transformations.nonlinear.RaysTransformation;
+import backend.academy.fractal.units.AffineMatrix;
+import backend.academy.fractal.units.Symmetry;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The RenderJob record describes a single fractal to render, whether it comes from the prompts,
+ * from the command line flags or from a line of a batch manifest.
+ * Missing optional values are filled with defaults, and the random choices of the job
+ * (a random transformation or matrix set) are drawn from the random source of the job,
+ * so a job with a seed always renders the same image.
+ *
+ * @param output         the file the image is written to, fractal.[extension] if null
+ * @param width          the width of the image in pixels
+ * @param height         the height of the image in pixels
+ * @param transformation the non-linear transformation, 1 to 5, or 0 for a random one
+ * @param iterations     the number of iterations of every point, or 0 for {@value #DEFAULT_ITERATIONS}
+ * @param points         the number of points, or 0 for {@value #DEFAULT_POINTS}
+ * @param matrices       the affine matrices as "a b c d e f red green blue", or empty for a random predefined set
+ * @param symmetry       the symmetry of the fractal, see {@link Symmetry#parse(String)}
+ * @param threads        the number of threads, or 0 for the number of processors
+ * @param format         the format of the image
+ * @param seed           the seed of the random generator, or null for a random render
+ */
+@SuppressWarnings("checkstyle:RecordComponentNumber")
+public record RenderJob(
+    String output,
+    int width,
+    int height,
+    int transformation,
+    int iterations,
+    int points,
+    List<String> matrices,
+    String symmetry,
+    int threads,
+    ImageFormat format,
+    Long seed
+) {
+    /**
+     * The number of iterations of a job that does not give one.
+     */
+    public static final int DEFAULT_ITERATIONS = 100;
+    /**
+     * The number of points of a job that does not give one.
+     */
+    public static final int DEFAULT_POINTS = 10_000;
+    private static final int TRANSFORMATIONS_COUNT = 5;
+    private static final int MATRIX_COMPONENTS = 9;
+
+    /**
+     * Validates the job and fills in the defaults.
+     */
+    public RenderJob {
+        iterations = iterations == 0 ? DEFAULT_ITERATIONS : iterations;
+        points = points == 0 ? DEFAULT_POINTS : points;
+        if (width <= 0 || height <= 0 || iterations <= 0 || points <= 0) {
+            throw new IllegalArgumentException("Width, height, iterations and points must be positive");
+        }
+        if (transformation < 0 || transformation > TRANSFORMATIONS_COUNT) {
+            throw new IllegalArgumentException("Unknown transformation: " + transformation);
+        }
+        matrices = matrices == null ? List.of() : List.copyOf(matrices);
+        symmetry = symmetry == null || symmetry.isBlank() ? "1" : symmetry;
+        threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        format = format == null ? ImageFormat.PNG : format;
+        output = output == null || output.isBlank() ? "fractal." + format.name().toLowerCase(Locale.ROOT) : output;
+    }
+
+    /**
+     * Creates the random source of the job.
+     *
+     * @return a source seeded with the seed of the job, or a randomly seeded one
+     */
+    public RandomSource random() {
+        return seed == null ? RandomSource.create() : RandomSource.create(seed);
+    }
+
+    /**
+     * Returns the file the image is written to.
+     *
+     * @return the output path
+     */
+    public Path outputPath() {
+        return Path.of(output);
+    }
+
+    /**
+     * Parses the symmetry of the job.
+     *
+     * @return the symmetry group
+     */
+    public Symmetry symmetryGroup() {
+        return Symmetry.parse(symmetry);
+    }
+
+    /**
+     * Creates the non-linear transformation of the job.
+     *
+     * @param random the random source of the job, used to pick a random transformation
+     * @return the transformation
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public Transformation createTransformation(RandomSource random) {
+        int index = transformation;
+        if (index == 0) {
+            index = random.nextInt(TRANSFORMATIONS_COUNT) + 1;
+        }
+        return switch (index) {
+            case 1 -> new DiamondTransformation();
+            case 2 -> new BubbleTransformation();
+            case 3 -> new FisheyeTransformation();
+            case 4 -> new ExponentialTransformation();
+            default -> new RaysTransformation();
+        };
+    }
+
+    /**
+     * Creates the affine matrices of the job.
+     *
+     * @param random the random source of the job, used to pick a random predefined set
+     * @return the affine matrices
+     */
+    public AffineMatrix[] createMatrices(RandomSource random) {
+        if (matrices.isEmpty()) {
+            return new AffineTransformations().getTransformation(random.nextInt(TRANSFORMATIONS_COUNT));
+        }
+        AffineMatrix[] affineMatrices = new AffineMatrix[matrices.size()];
+        for (int i = 0; i < affineMatrices.length; i++) {
+            affineMatrices[i] = parseMatrix(matrices.get(i));
+        }
+        return affineMatrices;
+    }
+
+    /**
+     * Parses an affine matrix written as nine space-separated numbers, optionally followed by its weight.
+     *
+     * @param matrix the matrix as "a b c d e f red green blue [weight]"
+     * @return the affine matrix
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public static AffineMatrix parseMatrix(String matrix) {
+        String[] components = matrix.trim().split("\\s+");
+        if (components.length != MATRIX_COMPONENTS && components.length != MATRIX_COMPONENTS + 1) {
+            throw new IllegalArgumentException("An affine matrix needs 9 components and an optional weight: " + matrix);
+        }
+        return new AffineMatrix(
+            Double.parseDouble(components[0]),
+            Double.parseDouble(components[1]),
+            Double.parseDouble(components[2]),
+            Double.parseDouble(components[3]),
+            Double.parseDouble(components[4]),
+            Double.parseDouble(components[5]),
+            Integer.parseInt(components[6]),
+            Integer.parseInt(components[7]),
+            Integer.parseInt(components[8]),
+            components.length > MATRIX_COMPONENTS ? Double.parseDouble(components[9]) : AffineMatrix.DEFAULT_WEIGHT
+        );
+    }
+}
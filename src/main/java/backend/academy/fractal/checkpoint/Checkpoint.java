@@ -0,0 +1,92 @@
+package backend.academy.fractal.checkpoint;
+
+import backend.academy.fractal.image.Histogram;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The Checkpoint record represents the saved state of an unfinished render.
+ * Every batch of a render draws from a random stream derived from the seed and the batch index,
+ * so the seed and the number of completed leading batches are all the random state needed
+ * to continue the render exactly where it stopped.
+ *
+ * @param fingerprint      the fingerprint of the rendered flame
+ * @param seed             the seed of the render
+ * @param num              the number of points of the whole render
+ * @param completedBatches the number of leading batches accumulated in the histogram
+ * @param histogram        the histogram accumulated so far
+ */
+public record Checkpoint(long fingerprint, long seed, int num, int completedBatches, Histogram histogram) {
+    private static final int MAGIC = 0x46464350;
+    private static final int VERSION = 1;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Writes the checkpoint to the given file, replacing it atomically.
+     * The data goes to a temporary file next to the target, is flushed to the disk
+     * and then renamed over the target, so a crash leaves either the previous or the new checkpoint.
+     * A write that fails deletes the temporary file.
+     *
+     * @param path the file to write the checkpoint to
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fingerprint);
+                out.writeLong(seed);
+                out.writeInt(num);
+                out.writeInt(completedBatches);
+                out.writeInt(histogram.width());
+                out.writeInt(histogram.height());
+                for (int index = 0; index < histogram.size(); index++) {
+                    out.writeInt(histogram.hitCount(index));
+                    out.writeLong(histogram.redSum(index));
+                    out.writeLong(histogram.greenSum(index));
+                    out.writeLong(histogram.blueSum(index));
+                }
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            HistogramFile.deleteQuietly(temp, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a checkpoint written by {@link #write(Path)}.
+     *
+     * @param path the file to read the checkpoint from
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static Checkpoint read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a render checkpoint: " + path);
+            }
+            long fingerprint = in.readLong();
+            long seed = in.readLong();
+            int num = in.readInt();
+            int completedBatches = in.readInt();
+            Histogram histogram = Histogram.create(in.readInt(), in.readInt());
+            for (int index = 0; index < histogram.size(); index++) {
+                histogram.add(index, in.readInt(), in.readLong(), in.readLong(), in.readLong());
+            }
+            return new Checkpoint(fingerprint, seed, num, completedBatches, histogram);
+        }
+    }
+}
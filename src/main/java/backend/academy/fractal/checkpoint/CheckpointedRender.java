@@ -0,0 +1,168 @@
+package backend.academy.fractal.checkpoint;
+
+import backend.academy.fractal.image.AccumulationMode;
+import backend.academy.fractal.image.ChaosGame;
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.image.RenderHandle;
+import backend.academy.fractal.image.RenderResult;
+import backend.academy.fractal.image.RenderScheduler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The CheckpointedRender class runs a long render in segments and saves a checkpoint after every one.
+ * A segment runs until the checkpoint interval passes; the histogram accumulated so far is then
+ * written on a background thread while the next segment already accumulates into a fresh histogram,
+ * so the workers only wait for the write if it takes longer than a whole segment.
+ * The checkpoint is deleted once the render completes.
+ */
+public final class CheckpointedRender {
+    private final Path path;
+    private final Duration interval;
+    private final boolean resume;
+
+    /**
+     * Constructs a CheckpointedRender.
+     *
+     * @param path     the checkpoint file
+     * @param interval the time between two checkpoints
+     * @param resume   whether to continue the render saved in the checkpoint file, if there is one
+     */
+    public CheckpointedRender(Path path, Duration interval, boolean resume) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        this.path = path;
+        this.interval = interval;
+        this.resume = resume;
+    }
+
+    /**
+     * Renders the flame, saving checkpoints along the way.
+     * When resuming, the render saved in the checkpoint file is continued with its own seed
+     * up to its original number of points, and the result is the same as if it had never been interrupted.
+     *
+     * @param scheduler  the scheduler running the segments
+     * @param chaosGame  the flame to render
+     * @param num        the number of points to generate, ignored when resuming
+     * @param numThreads the number of threads working on the render, including the calling one
+     * @param mode       whether participants fill their own histograms or share a single one
+     * @param seed       the seed of the render, ignored when resuming
+     * @return the accumulated histogram with the seed and the points it was actually rendered with
+     * @throws IOException if the checkpoint cannot be read
+     */
+    public RenderResult render(
+        RenderScheduler scheduler,
+        ChaosGame chaosGame,
+        int num,
+        int numThreads,
+        AccumulationMode mode,
+        long seed
+    ) throws IOException {
+        Checkpoint start;
+        if (resume && Files.exists(path)) {
+            start = Checkpoint.read(path);
+            if (start.fingerprint() != chaosGame.fingerprint()
+                || start.histogram().width() != chaosGame.width()
+                || start.histogram().height() != chaosGame.height()) {
+                throw new IllegalArgumentException("The checkpoint " + path + " belongs to a different flame");
+            }
+        } else {
+            start = new Checkpoint(
+                chaosGame.fingerprint(), seed, num, 0, Histogram.create(chaosGame.width(), chaosGame.height()));
+        }
+        return run(scheduler, chaosGame, numThreads, mode, start);
+    }
+
+    /**
+     * Runs the segments of a render until all batches are accumulated or the calling thread is interrupted.
+     * An interrupted render writes a last checkpoint and returns its partial result with the interrupt status set.
+     *
+     * @param scheduler  the scheduler running the segments
+     * @param chaosGame  the flame to render
+     * @param numThreads the number of threads working on the render, including the calling one
+     * @param mode       whether participants fill their own histograms or share a single one
+     * @param start      the state to start from
+     * @return the accumulated histogram with the seed and the points of the render
+     */
+    private RenderResult run(
+        RenderScheduler scheduler,
+        ChaosGame chaosGame,
+        int numThreads,
+        AccumulationMode mode,
+        Checkpoint start
+    ) {
+        Histogram total = start.histogram();
+        int completed = start.completedBatches();
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
+        try {
+            boolean finished = false;
+            RenderHandle handle = null;
+            while (!finished) {
+                handle = scheduler.resume(chaosGame, start.num(), numThreads, mode, start.seed(), completed);
+                Histogram segment = handle.awaitUntil(Instant.now().plus(interval));
+                boolean interrupted = Thread.interrupted();
+                // the total may still be on its way to the disk
+                await(pendingWrite);
+                scheduler.merge(total, segment);
+                completed = handle.completedBatches();
+                finished = completed >= handle.batches();
+                Checkpoint checkpoint =
+                    new Checkpoint(start.fingerprint(), start.seed(), start.num(), completed, total);
+                if (interrupted) {
+                    write(checkpoint);
+                    Thread.currentThread().interrupt();
+                    return new RenderResult(total, start.seed(), handle.completedPoints());
+                }
+                if (!finished) {
+                    pendingWrite = CompletableFuture.runAsync(() -> write(checkpoint), writer);
+                }
+            }
+            Files.deleteIfExists(path);
+            return new RenderResult(total, start.seed(), handle.completedPoints());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete the checkpoint", e);
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    /**
+     * Writes a checkpoint to the checkpoint file.
+     *
+     * @param checkpoint the checkpoint to write
+     */
+    private void write(Checkpoint checkpoint) {
+        try {
+            checkpoint.write(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the checkpoint", e);
+        }
+    }
+
+    /**
+     * Waits for a background write, rethrowing its failure.
+     *
+     * @param write the pending write
+     */
+    private static void await(CompletableFuture<Void> write) {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package backend.academy.fractal.checkpoint;
+
+import backend.academy.fractal.image.Histogram;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The HistogramFile record represents a finished accumulated histogram saved to a file,
+ * so that it can be tone-mapped again or merged with other renders of the same flame.
+ * Renders of the same flame with different seeds sample the same distribution,
+ * so the sum of their histograms is statistically equivalent to one render with all their points,
+ * though not the same histogram cell for cell.
+ * Renders with the same seed draw the same points, so every file records the seeds it holds
+ * and a merge that would count a seed twice is rejected.
+ * <p>
+ * The file starts with a magic number, the format version, the size of the histogram,
+ * the fingerprint of the flame, the number of points and the seeds of the renders it holds.
+ * Then come the cells in zlib-compressed form:
+ * every cell is its hit count as a variable-length integer followed,
+ * for a cell that was hit, by its three color sums in the same encoding.
+ * Most cells of a flame are empty and most sums are small, so this is far smaller
+ * than the fixed-width cells of a {@link Checkpoint}.
+ *
+ * @param fingerprint the fingerprint of the rendered flame
+ * @param seeds       the seeds of the renders summed up in the histogram
+ * @param points      the number of points of all those renders together
+ * @param histogram   the accumulated histogram
+ */
+public record HistogramFile(long fingerprint, List<Long> seeds, long points, Histogram histogram) {
+    private static final int MAGIC = 0x46464847;
+    private static final int VERSION = 2;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    /**
+     * Validates the record and copies the seeds.
+     */
+    public HistogramFile {
+        seeds = List.copyOf(seeds);
+        if (seeds.isEmpty() || points < 0) {
+            throw new IllegalArgumentException("A histogram file needs a seed and a non-negative number of points");
+        }
+    }
+
+    /**
+     * Constructs the histogram file of a single render.
+     *
+     * @param fingerprint the fingerprint of the rendered flame
+     * @param seed        the seed of the render
+     * @param points      the number of points of the render
+     * @param histogram   the accumulated histogram
+     */
+    public HistogramFile(long fingerprint, long seed, long points, Histogram histogram) {
+        this(fingerprint, List.of(seed), points, histogram);
+    }
+
+    /**
+     * Writes the histogram to the given file, replacing it atomically.
+     * The temporary file the histogram is written to first is deleted if the write fails.
+     *
+     * @param path the file to write the histogram to
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        try {
+            Deflater deflater = new Deflater();
+            try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+                DataOutputStream header = new DataOutputStream(file);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.writeInt(histogram.width());
+                header.writeInt(histogram.height());
+                header.writeLong(fingerprint);
+                header.writeLong(points);
+                header.writeInt(seeds.size());
+                for (long seed : seeds) {
+                    header.writeLong(seed);
+                }
+                DeflaterOutputStream compressed = new DeflaterOutputStream(file, deflater);
+                OutputStream cells = new BufferedOutputStream(compressed);
+                for (int index = 0; index < histogram.size(); index++) {
+                    int hits = histogram.hitCount(index);
+                    writeVarLong(cells, hits);
+                    if (hits > 0) {
+                        writeVarLong(cells, histogram.redSum(index));
+                        writeVarLong(cells, histogram.greenSum(index));
+                        writeVarLong(cells, histogram.blueSum(index));
+                    }
+                }
+                cells.flush();
+                compressed.finish();
+                file.getChannel().force(true);
+            } finally {
+                deflater.end();
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temp, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the temporary file of a failed write, keeping a failure to delete it with the original failure.
+     *
+     * @param temp    the temporary file
+     * @param failure the failure of the write
+     */
+    static void deleteQuietly(Path temp, Exception failure) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Reads a histogram written by {@link #write(Path)}.
+     *
+     * @param path the file to read the histogram from
+     * @return the saved histogram
+     * @throws IOException if the file cannot be read or is not a histogram file
+     */
+    public static HistogramFile read(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            Histogram histogram = Histogram.create(in.readInt(), in.readInt());
+            long fingerprint = in.readLong();
+            long points = in.readLong();
+            HistogramFile file = new HistogramFile(fingerprint, readSeeds(in, path), points, histogram);
+            file.readCells(in, path);
+            return file;
+        }
+    }
+
+    /**
+     * Merges saved histograms of the same flame into one. Only the first file is held in memory,
+     * the cells of the others are added to it as they are read.
+     *
+     * @param paths the files to merge
+     * @return the sum of the histograms
+     * @throws IOException if a file cannot be read, is not a histogram file,
+     *                     belongs to another flame or size than the first, or repeats a seed of an earlier one
+     */
+    public static HistogramFile merge(List<Path> paths) throws IOException {
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to merge");
+        }
+        HistogramFile first = read(paths.get(0));
+        List<Long> seeds = new ArrayList<>(first.seeds());
+        Set<Long> seen = new HashSet<>(seeds);
+        long points = first.points();
+        for (Path path : paths.subList(1, paths.size())) {
+            try (DataInputStream in = open(path)) {
+                int width = in.readInt();
+                int height = in.readInt();
+                long fingerprint = in.readLong();
+                if (width != first.histogram().width() || height != first.histogram().height()
+                    || fingerprint != first.fingerprint()) {
+                    throw new IOException(path + " is a render of another flame than " + paths.get(0));
+                }
+                points += in.readLong();
+                for (long seed : readSeeds(in, path)) {
+                    if (!seen.add(seed)) {
+                        throw new IOException(path + " repeats the seed " + seed + ", its points are already merged");
+                    }
+                    seeds.add(seed);
+                }
+                first.readCells(in, path);
+            }
+        }
+        return new HistogramFile(first.fingerprint(), seeds, points, first.histogram());
+    }
+
+    /**
+     * Opens a histogram file and checks its magic number and version.
+     *
+     * @param path the file to open
+     * @return the stream positioned at the size of the histogram
+     * @throws IOException if the file cannot be read or is not a histogram file
+     */
+    private static DataInputStream open(Path path) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        try {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != MAGIC) {
+                throw new IOException("Not a histogram file: " + path);
+            }
+            if (version != VERSION) {
+                throw new IOException("Unsupported histogram file version " + version + ": " + path);
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the seeds of the header.
+     *
+     * @param in   the stream positioned at the number of seeds
+     * @param path the file being read, for error messages
+     * @return the seeds
+     * @throws IOException if the seeds cannot be read or their number is not positive
+     */
+    private static List<Long> readSeeds(DataInputStream in, Path path) throws IOException {
+        int count = in.readInt();
+        if (count <= 0) {
+            throw new IOException("The histogram file has no seeds: " + path);
+        }
+        List<Long> seeds = new ArrayList<>();
+        for (int seed = 0; seed < count; seed++) {
+            seeds.add(in.readLong());
+        }
+        return seeds;
+    }
+
+    /**
+     * Reads the compressed cells that follow the header and adds them to the histogram.
+     * The stream is read to its end, which makes the inflater verify the checksum of the cells.
+     *
+     * @param in   the stream positioned after the header, closed by this method
+     * @param path the file being read, for error messages
+     * @throws IOException if the cells cannot be read or are corrupted, or a hit count overflows
+     */
+    private void readCells(InputStream in, Path path) throws IOException {
+        try (InputStream cells = new BufferedInputStream(new InflaterInputStream(in))) {
+            for (int index = 0; index < histogram.size(); index++) {
+                long hits = readVarLong(cells);
+                if (hits > 0) {
+                    if (histogram.hitCount(index) + hits > Integer.MAX_VALUE) {
+                        throw new IOException("Too many hits in a cell after adding " + path);
+                    }
+                    histogram.add(index, (int) hits, readVarLong(cells), readVarLong(cells), readVarLong(cells));
+                }
+            }
+            if (cells.read() >= 0) {
+                throw new IOException("The histogram file has trailing data: " + path);
+            }
+        }
+    }
+
+    /**
+     * Writes a non-negative number seven bits at a time, least significant first,
+     * with the high bit of every byte but the last set.
+     *
+     * @param out   the stream to write to
+     * @param value the non-negative number
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        long rest = value;
+        while ((rest & ~VARINT_PAYLOAD) != 0) {
+            out.write((int) (rest & VARINT_PAYLOAD) | VARINT_CONTINUATION);
+            rest >>>= VARINT_PAYLOAD_BITS;
+        }
+        out.write((int) rest);
+    }
+
+    /**
+     * Reads a number written by {@link #writeVarLong(OutputStream, long)}.
+     *
+     * @param in the stream to read from
+     * @return the number
+     * @throws IOException if the stream ends before the number does
+     */
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VARINT_PAYLOAD_BITS) {
+            int next = in.read();
+            if (next < 0) {
+                throw new EOFException("The histogram file is truncated");
+            }
+            value |= (long) (next & VARINT_PAYLOAD) << shift;
+            if ((next & VARINT_CONTINUATION) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("The histogram file is corrupted");
+    }
+}
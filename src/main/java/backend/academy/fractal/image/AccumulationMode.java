@@ -0,0 +1,18 @@
+package backend.academy.fractal.image;
+
+/**
+ * Enum representing the ways worker threads accumulate hits during a render.
+ */
+public enum AccumulationMode {
+    /**
+     * Every worker fills its own histogram, which are merged when the workers finish.
+     * Updates are plain writes, but memory grows linearly with the number of threads.
+     */
+    PER_THREAD,
+
+    /**
+     * All workers write into one shared histogram with atomic updates.
+     * Memory stays at a single frame regardless of the number of threads.
+     */
+    SHARED
+}
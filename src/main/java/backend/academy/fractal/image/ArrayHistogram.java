@@ -0,0 +1,106 @@
+package backend.academy.fractal.image;
+
+/**
+ * The ArrayHistogram class is a heap-backed Histogram in struct-of-arrays layout.
+ * Hit counts and color sums live in separate flat primitive arrays indexed by {@code y * width + x},
+ * so recording a hit touches four array slots and allocates nothing.
+ */
+public final class ArrayHistogram implements Histogram {
+    private final int width;
+    private final int height;
+    private final int[] hits;
+    private final long[] red;
+    private final long[] green;
+    private final long[] blue;
+
+    /**
+     * Constructs an empty ArrayHistogram.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     */
+    public ArrayHistogram(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int size = Math.multiplyExact(width, height);
+        this.hits = new int[size];
+        this.red = new long[size];
+        this.green = new long[size];
+        this.blue = new long[size];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void add(int index, int r, int g, int b) {
+        hits[index]++;
+        red[index] += r;
+        green[index] += g;
+        blue[index] += b;
+    }
+
+    @Override
+    public void add(int index, int count, long r, long g, long b) {
+        hits[index] += count;
+        red[index] += r;
+        green[index] += g;
+        blue[index] += b;
+    }
+
+    @Override
+    public int hitCount(int index) {
+        return hits[index];
+    }
+
+    @Override
+    public long redSum(int index) {
+        return red[index];
+    }
+
+    @Override
+    public long greenSum(int index) {
+        return green[index];
+    }
+
+    @Override
+    public long blueSum(int index) {
+        return blue[index];
+    }
+
+    @Override
+    public void merge(Histogram other, int from, int to) {
+        if (other.width() != width || other.height() != height) {
+            throw new IllegalArgumentException("Histograms must have the same size");
+        }
+        if (other instanceof ArrayHistogram array) {
+            // one plain loop per channel, so the JIT can vectorize the additions
+            for (int i = from; i < to; i++) {
+                hits[i] += array.hits[i];
+            }
+            for (int i = from; i < to; i++) {
+                red[i] += array.red[i];
+            }
+            for (int i = from; i < to; i++) {
+                green[i] += array.green[i];
+            }
+            for (int i = from; i < to; i++) {
+                blue[i] += array.blue[i];
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                hits[i] += other.hitCount(i);
+                red[i] += other.redSum(i);
+                green[i] += other.greenSum(i);
+                blue[i] += other.blueSum(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.random.AliasTable;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.transformations.Transformation;
+import backend.academy.fractal.units.AffineMatrix;
+import java.util.Arrays;
+
+/**
+ * The BatchedChaosKernel class advances a block of walkers held as arrays of coordinates.
+ * Every step the walkers are sorted by their randomly chosen affine map with a counting sort,
+ * every group runs through its map in a tight loop over plain coordinates,
+ * and the whole block runs through the non-linear transformation in one
+ * {@link Transformation#transformBatch(double[], double[], int)} call.
+ * Walkers are interchangeable, so the sorted block simply becomes the block of the next step.
+ */
+final class BatchedChaosKernel implements ChaosKernel {
+    @Override
+    public String name() {
+        return "batched";
+    }
+
+    @Override
+    public void play(ChaosGame game, int num, RandomSource random, Histogram histogram) {
+        AffineMatrix[] matrices = game.matrices();
+        AliasTable selection = game.selection();
+        Transformation transformation = game.transformation();
+        int maxIterations = game.maxIterations();
+        double[] xs = new double[ChaosGame.BATCH_SIZE];
+        double[] ys = new double[ChaosGame.BATCH_SIZE];
+        double[] sortedX = new double[ChaosGame.BATCH_SIZE];
+        double[] sortedY = new double[ChaosGame.BATCH_SIZE];
+        int[] indices = new int[ChaosGame.BATCH_SIZE];
+        int[] groupStart = new int[matrices.length + 1];
+        for (int points = 0; points < num; points += ChaosGame.BATCH_SIZE) {
+            int block = Math.min(ChaosGame.BATCH_SIZE, num - points);
+            random.nextDoubles(xs, ChaosGame.X_MIN, ChaosGame.X_MAX);
+            random.nextDoubles(ys, ChaosGame.Y_MIN, ChaosGame.Y_MAX);
+
+            for (int step = ChaosGame.INITIAL_ITER; step < maxIterations; step++) {
+                selection.sample(random, indices);
+                sort(xs, ys, indices, block, sortedX, sortedY, groupStart);
+                for (int i = 0; i < matrices.length; i++) {
+                    applyAffine(matrices[i], sortedX, sortedY, groupStart[i], groupStart[i + 1]);
+                }
+                transformation.transformBatch(sortedX, sortedY, block);
+                if (step >= 0) {
+                    for (int i = 0; i < matrices.length; i++) {
+                        for (int walker = groupStart[i]; walker < groupStart[i + 1]; walker++) {
+                            game.applySymmetry(sortedX[walker], sortedY[walker], matrices[i], histogram);
+                        }
+                    }
+                }
+                double[] swap = xs;
+                xs = sortedX;
+                sortedX = swap;
+                swap = ys;
+                ys = sortedY;
+                sortedY = swap;
+            }
+        }
+    }
+
+    /**
+     * Copies the walkers of a block grouped by their chosen affine map, keeping their order within a group.
+     * The group of map i ends up between groupStart[i] and groupStart[i + 1].
+     *
+     * @param xs         the x-coordinates of the walkers
+     * @param ys         the y-coordinates of the walkers
+     * @param indices    the affine map chosen by every walker
+     * @param block      the number of walkers
+     * @param sortedX    the buffer receiving the grouped x-coordinates
+     * @param sortedY    the buffer receiving the grouped y-coordinates
+     * @param groupStart the buffer receiving the start of the group of every map and the end of the last one
+     */
+    private static void sort(
+        double[] xs,
+        double[] ys,
+        int[] indices,
+        int block,
+        double[] sortedX,
+        double[] sortedY,
+        int[] groupStart
+    ) {
+        Arrays.fill(groupStart, 0);
+        for (int walker = 0; walker < block; walker++) {
+            groupStart[indices[walker]]++;
+        }
+        int end = 0;
+        for (int i = 0; i < groupStart.length; i++) {
+            end += groupStart[i];
+            groupStart[i] = end;
+        }
+        // every group is filled from its end, which leaves its start behind
+        for (int walker = block - 1; walker >= 0; walker--) {
+            int position = --groupStart[indices[walker]];
+            sortedX[position] = xs[walker];
+            sortedY[position] = ys[walker];
+        }
+    }
+
+    /**
+     * Applies one affine map to a range of walkers in place.
+     *
+     * @param matrix the affine map
+     * @param xs     the x-coordinates
+     * @param ys     the y-coordinates
+     * @param from   the first walker of the range
+     * @param to     the end of the range, exclusive
+     */
+    private static void applyAffine(AffineMatrix matrix, double[] xs, double[] ys, int from, int to) {
+        double a = matrix.a();
+        double b = matrix.b();
+        double c = matrix.c();
+        double d = matrix.d();
+        double e = matrix.e();
+        double f = matrix.f();
+        for (int walker = from; walker < to; walker++) {
+            double x = xs[walker];
+            double y = ys[walker];
+            xs[walker] = a * x + b * y + c;
+            ys[walker] = d * x + e * y + f;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.random.AliasTable;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.transformations.Transformation;
+import backend.academy.fractal.units.AffineMatrix;
+import backend.academy.fractal.units.Symmetry;
+
+/**
+ * The ChaosGame class holds the parameters of a flame and runs the chaos game for it.
+ * Every walker starts at a random point, is pushed through randomly chosen affine maps
+ * followed by the non-linear transformation, and after a short warm-up every position
+ * and its symmetric images are recorded in a histogram.
+ * Instances are immutable and can be shared by all worker threads of a render.
+ * The walkers are advanced by a {@link ChaosKernel}, the scalar one unless another is configured.
+ */
+public final class ChaosGame {
+    static final double X_MIN = -1.2;
+    static final double X_MAX = 1.2;
+    static final double Y_MIN = -1.2;
+    static final double Y_MAX = 1.2;
+    static final int INITIAL_ITER = -20;
+    static final int BATCH_SIZE = 1024;
+    private final int width;
+    private final int height;
+    private final Transformation transformation;
+    private final AffineMatrix[] matrices;
+    private final double[] symmetry;
+    private final int maxIterations;
+    private final ChaosKernel kernel;
+    private final AliasTable selection;
+
+    /**
+     * Constructs a ChaosGame.
+     *
+     * @param width          the width of the histogram
+     * @param height         the height of the histogram
+     * @param transformation the non-linear transformation
+     * @param matrices       the affine transformation matrices
+     * @param symmetry       the symmetry group applied to every point
+     * @param maxIterations  the number of recorded iterations of every walker
+     */
+    public ChaosGame(
+        int width,
+        int height,
+        Transformation transformation,
+        AffineMatrix[] matrices,
+        Symmetry symmetry,
+        int maxIterations
+    ) {
+        this(width, height, transformation, matrices, symmetry.matrices(), maxIterations, ChaosKernels.configured(),
+            selection(matrices));
+    }
+
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    private ChaosGame(
+        int width,
+        int height,
+        Transformation transformation,
+        AffineMatrix[] matrices,
+        double[] symmetry,
+        int maxIterations,
+        ChaosKernel kernel,
+        AliasTable selection
+    ) {
+        this.width = width;
+        this.height = height;
+        this.transformation = transformation;
+        this.matrices = matrices;
+        this.symmetry = symmetry;
+        this.maxIterations = maxIterations;
+        this.kernel = kernel;
+        this.selection = selection;
+    }
+
+    /**
+     * Returns the same flame advanced by another kernel.
+     * Kernels draw their random numbers in different orders, so a seeded render
+     * is reproducible only with the same kernel.
+     *
+     * @param other the kernel advancing the walkers
+     * @return the chaos game with the given kernel
+     */
+    public ChaosGame withKernel(ChaosKernel other) {
+        return new ChaosGame(width, height, transformation, matrices, symmetry, maxIterations, other, selection);
+    }
+
+    /**
+     * Returns the width of the histograms this game fills.
+     *
+     * @return the width in cells
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the histograms this game fills.
+     *
+     * @return the height in cells
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the number of steps every walker makes, including the warm-up.
+     *
+     * @return the number of steps per point
+     */
+    public int stepsPerPoint() {
+        return maxIterations - INITIAL_ITER;
+    }
+
+    /**
+     * Returns the non-linear transformation of the flame.
+     *
+     * @return the transformation
+     */
+    Transformation transformation() {
+        return transformation;
+    }
+
+    /**
+     * Returns the affine maps of the flame, shared and not to be modified.
+     *
+     * @return the affine matrices
+     */
+    AffineMatrix[] matrices() {
+        return matrices;
+    }
+
+    /**
+     * Returns the table drawing the indices of the affine maps by their weights.
+     *
+     * @return the selection table
+     */
+    AliasTable selection() {
+        return selection;
+    }
+
+    /**
+     * Returns the number of recorded iterations of every walker, after the warm-up.
+     *
+     * @return the number of recorded iterations
+     */
+    int maxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Returns a hash of everything that decides which cells this game hits, including the kernel,
+     * used to check that a saved partial render belongs to the same flame.
+     *
+     * @return the fingerprint of the game
+     */
+    public long fingerprint() {
+        long hash = mix(mix(mix(width, height), maxIterations), transformation.getClass().getName().hashCode());
+        for (AffineMatrix matrix : matrices) {
+            hash = mix(hash, Double.doubleToLongBits(matrix.a()));
+            hash = mix(hash, Double.doubleToLongBits(matrix.b()));
+            hash = mix(hash, Double.doubleToLongBits(matrix.c()));
+            hash = mix(hash, Double.doubleToLongBits(matrix.d()));
+            hash = mix(hash, Double.doubleToLongBits(matrix.e()));
+            hash = mix(hash, Double.doubleToLongBits(matrix.f()));
+            hash = mix(hash, ((long) matrix.red() << 32) | ((long) matrix.green() << 16) | matrix.blue());
+            hash = mix(hash, Double.doubleToLongBits(matrix.weight()));
+        }
+        for (double value : symmetry) {
+            hash = mix(hash, Double.doubleToLongBits(value));
+        }
+        return mix(hash, kernel.name().hashCode());
+    }
+
+    /**
+     * Runs the chaos game and accumulates the hits into the given histogram.
+     *
+     * @param num       the number of points to generate
+     * @param random    the random source owned by the current thread
+     * @param histogram the histogram receiving the hits
+     * @return the histogram the hits were accumulated into
+     */
+    public Histogram play(int num, RandomSource random, Histogram histogram) {
+        kernel.play(this, num, random, histogram);
+        return histogram;
+    }
+
+    /**
+     * Runs the chaos game one walker at a time, the scalar kernel.
+     *
+     * @param num       the number of points to generate
+     * @param random    the random source owned by the current thread
+     * @param histogram the histogram receiving the hits
+     */
+    void playScalar(int num, RandomSource random, Histogram histogram) {
+        double[] nonLinearTransformation = new double[2];
+        // random numbers are drawn in batches to keep the generator out of the inner loop
+        double[] startX = new double[BATCH_SIZE];
+        double[] startY = new double[BATCH_SIZE];
+        int[] indices = new int[BATCH_SIZE];
+        int nextIndex = BATCH_SIZE;
+        for (int points = 0; points < num; points++) {
+            int nextStart = points % BATCH_SIZE;
+            if (nextStart == 0) {
+                random.nextDoubles(startX, X_MIN, X_MAX);
+                random.nextDoubles(startY, Y_MIN, Y_MAX);
+            }
+            double newX = startX[nextStart];
+            double newY = startY[nextStart];
+
+            for (int step = INITIAL_ITER; step < maxIterations; step++) {
+                if (nextIndex == BATCH_SIZE) {
+                    selection.sample(random, indices);
+                    nextIndex = 0;
+                }
+                int i = indices[nextIndex++];
+                double xLinear = matrices[i].a() * newX + matrices[i].b() * newY + matrices[i].c();
+                double yLinear = matrices[i].d() * newX + matrices[i].e() * newY + matrices[i].f();
+
+                transformation.transform(xLinear, yLinear, nonLinearTransformation);
+                newX = nonLinearTransformation[0];
+                newY = nonLinearTransformation[1];
+                if (step >= 0) {
+                    applySymmetry(newX, newY, matrices[i], histogram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies symmetry to the generated fractal points.
+     *
+     * @param newX      the X coordinate of the point
+     * @param newY      the Y coordinate of the point
+     * @param matrix    the affine matrix that produced the point
+     * @param histogram the histogram receiving the hits
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    void applySymmetry(double newX, double newY, AffineMatrix matrix, Histogram histogram) {
+        for (int s = 0; s < symmetry.length; s += 4) {
+            double symX = symmetry[s] * newX + symmetry[s + 1] * newY;
+            double symY = symmetry[s + 2] * newX + symmetry[s + 3] * newY;
+
+            if (belongsTo(symX, symY)) {
+                int x1 = width - (int) (((X_MAX - symX) / (X_MAX - X_MIN)) * width);
+                int y1 = height - (int) (((Y_MAX - symY) / (Y_MAX - Y_MIN)) * height);
+                if (x1 < width && y1 < height) {
+                    histogram.add(y1 * width + x1, matrix.red(), matrix.green(), matrix.blue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the table choosing the affine maps by their weights, once per render.
+     *
+     * @param matrices the affine maps
+     * @return the selection table
+     */
+    private static AliasTable selection(AffineMatrix[] matrices) {
+        double[] weights = new double[matrices.length];
+        for (int i = 0; i < matrices.length; i++) {
+            weights[i] = matrices[i].weight();
+        }
+        return new AliasTable(weights);
+    }
+
+    /**
+     * Mixes a value into a running hash.
+     *
+     * @param hash  the hash so far
+     * @param value the value to mix in
+     * @return the new hash
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    private static long mix(long hash, long value) {
+        long mixed = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return mixed ^ (mixed >>> 32);
+    }
+
+    /**
+     * Checks if the given point belongs to the fractal area.
+     *
+     * @param x the X coordinate of the point
+     * @param y the Y coordinate of the point
+     * @return true if the point belongs to the fractal area, false otherwise
+     */
+    private static boolean belongsTo(double x, double y) {
+        return x >= X_MIN && x <= X_MAX && y >= Y_MIN && y <= Y_MAX;
+    }
+}
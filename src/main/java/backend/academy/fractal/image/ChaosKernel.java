@@ -0,0 +1,38 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.random.RandomSource;
+
+/**
+ * The ChaosKernel interface advances the walkers of a chaos game and records their hits.
+ * Kernels differ only in how they schedule the arithmetic, and every kernel samples the same flame,
+ * but they draw their random numbers in different orders, so seeded renders match only within a kernel.
+ * The name of a kernel therefore belongs to the identity of a seeded render.
+ * See {@link ChaosKernels} for the available kernels.
+ */
+public interface ChaosKernel {
+    /**
+     * Returns the name the kernel is chosen by.
+     *
+     * @return the name of the kernel
+     */
+    String name();
+
+    /**
+     * Checks whether a seeded render with this kernel hits exactly the same cells every time.
+     *
+     * @return true if seeded renders are reproducible bit for bit
+     */
+    default boolean reproducible() {
+        return true;
+    }
+
+    /**
+     * Runs the given number of walkers of a chaos game.
+     *
+     * @param game      the flame
+     * @param num       the number of walkers
+     * @param random    the random source owned by the current thread
+     * @param histogram the histogram receiving the hits
+     */
+    void play(ChaosGame game, int num, RandomSource random, Histogram histogram);
+}
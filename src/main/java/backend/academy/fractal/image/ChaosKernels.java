@@ -0,0 +1,103 @@
+package backend.academy.fractal.image;
+
+import java.util.Locale;
+
+/**
+ * The ChaosKernels class provides the kernels of the chaos game.
+ * The scalar kernel advances one walker at a time and always works.
+ * The batched kernel advances a block of walkers grouped by their affine map, with plain Java arithmetic.
+ * The vector kernel advances a full SIMD register of walkers per step with the incubating Vector API;
+ * it is compiled only with the {@code vector} Maven profile and needs
+ * {@code --add-modules jdk.incubator.vector} at run time, and without either it falls back to the scalar one.
+ * The vector math of that API may round differently in interpreted and compiled code,
+ * and expanding flames amplify such differences, so a seeded render with the vector kernel samples
+ * the same flame but is not reproducible bit for bit, see {@link ChaosKernel#reproducible()}.
+ * The kernel of new chaos games is chosen with the system property {@value #PROPERTY},
+ * {@code scalar} by default, {@code batched} or {@code vector}.
+ */
+public final class ChaosKernels {
+    /**
+     * The system property choosing the kernel of new chaos games.
+     */
+    public static final String PROPERTY = "fractal.kernel";
+    private static final String VECTOR_KERNEL = "backend.academy.fractal.image.VectorChaosKernel";
+    private static final ChaosKernel SCALAR = new ScalarChaosKernel();
+    private static final ChaosKernel BATCHED = new BatchedChaosKernel();
+    private static final ChaosKernel VECTOR = loadVector();
+    private static final ChaosKernel CONFIGURED = byName(System.getProperty(PROPERTY, "scalar"));
+
+    private ChaosKernels() {
+    }
+
+    /**
+     * Returns the kernel advancing one walker at a time.
+     *
+     * @return the scalar kernel
+     */
+    public static ChaosKernel scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Returns the kernel advancing a block of walkers sorted by their affine map.
+     *
+     * @return the batched kernel
+     */
+    public static ChaosKernel batched() {
+        return BATCHED;
+    }
+
+    /**
+     * Returns the kernel advancing a vector of walkers at a time, or the scalar kernel if it is unavailable.
+     *
+     * @return the vector kernel, or the scalar one
+     */
+    public static ChaosKernel vector() {
+        return VECTOR == null ? SCALAR : VECTOR;
+    }
+
+    /**
+     * Checks whether the vector kernel was compiled in and the Vector API module is present.
+     *
+     * @return true if {@link #vector()} returns the vector kernel
+     */
+    public static boolean vectorAvailable() {
+        return VECTOR != null;
+    }
+
+    /**
+     * Returns the kernel chosen by the system property {@value #PROPERTY}.
+     *
+     * @return the configured kernel
+     */
+    public static ChaosKernel configured() {
+        return CONFIGURED;
+    }
+
+    /**
+     * Returns a kernel by its name, the scalar kernel for an unknown name.
+     *
+     * @param name the name of the kernel: scalar, batched or vector
+     * @return the kernel
+     */
+    public static ChaosKernel byName(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "batched" -> BATCHED;
+            case "vector" -> vector();
+            default -> SCALAR;
+        };
+    }
+
+    /**
+     * Loads the vector kernel reflectively, so that this class links without the Vector API.
+     *
+     * @return the vector kernel, or null if it is not compiled in or the module is missing
+     */
+    private static ChaosKernel loadVector() {
+        try {
+            return (ChaosKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package backend.academy.fractal.image;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * The ConcurrentHistogram class is a heap-backed Histogram that can be shared by all worker threads.
+ * Every update is a lock-free atomic add on the flat primitive arrays, so a render needs
+ * a single frame in memory no matter how many threads accumulate into it.
+ */
+public final class ConcurrentHistogram implements Histogram {
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private final int width;
+    private final int height;
+    private final int[] hits;
+    private final long[] red;
+    private final long[] green;
+    private final long[] blue;
+
+    /**
+     * Constructs an empty ConcurrentHistogram.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     */
+    public ConcurrentHistogram(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int size = Math.multiplyExact(width, height);
+        this.hits = new int[size];
+        this.red = new long[size];
+        this.green = new long[size];
+        this.blue = new long[size];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void add(int index, int r, int g, int b) {
+        INTS.getAndAdd(hits, index, 1);
+        LONGS.getAndAdd(red, index, (long) r);
+        LONGS.getAndAdd(green, index, (long) g);
+        LONGS.getAndAdd(blue, index, (long) b);
+    }
+
+    @Override
+    public void add(int index, int count, long r, long g, long b) {
+        INTS.getAndAdd(hits, index, count);
+        LONGS.getAndAdd(red, index, r);
+        LONGS.getAndAdd(green, index, g);
+        LONGS.getAndAdd(blue, index, b);
+    }
+
+    @Override
+    public int hitCount(int index) {
+        return (int) INTS.getOpaque(hits, index);
+    }
+
+    @Override
+    public long redSum(int index) {
+        return (long) LONGS.getOpaque(red, index);
+    }
+
+    @Override
+    public long greenSum(int index) {
+        return (long) LONGS.getOpaque(green, index);
+    }
+
+    @Override
+    public long blueSum(int index) {
+        return (long) LONGS.getOpaque(blue, index);
+    }
+
+    /**
+     * Empties every cell, so the histogram can be reused by another render of the same size.
+     * Must not be called while a render accumulates into the histogram.
+     */
+    public void clear() {
+        Arrays.fill(hits, 0);
+        Arrays.fill(red, 0);
+        Arrays.fill(green, 0);
+        Arrays.fill(blue, 0);
+    }
+
+    @Override
+    public void merge(Histogram other, int from, int to) {
+        if (other.width() != width || other.height() != height) {
+            throw new IllegalArgumentException("Histograms must have the same size");
+        }
+        for (int i = from; i < to; i++) {
+            int otherHits = other.hitCount(i);
+            if (otherHits != 0) {
+                INTS.getAndAdd(hits, i, otherHits);
+                LONGS.getAndAdd(red, i, other.redSum(i));
+                LONGS.getAndAdd(green, i, other.greenSum(i));
+                LONGS.getAndAdd(blue, i, other.blueSum(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package backend.academy.fractal.image;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The DensityEstimator class smooths a histogram with a blur whose radius adapts to the density,
+ * the density estimation stage of flam3 that runs between accumulation and tone mapping.
+ * The hits of a cell are spread over a disc of radius {@code maxRadius / hits^curve}, so sparse cells
+ * are blurred widely while dense detail stays sharp, which removes the grain of low-density regions
+ * without rendering many more points. The normalized kernels are precomputed for radii in steps
+ * of a quarter cell. Cells scatter their hits into rows at most the maximum radius away, so the rows
+ * are cut into bands at least twice that high, and first the even and then the odd bands run in parallel
+ * without two bands ever writing the same row at the same time.
+ */
+public final class DensityEstimator {
+    private static final int STEPS_PER_CELL = 4;
+    private static final int MIN_ROWS_PER_BAND = 16;
+    private static final double SIGMA_PER_RADIUS = 0.5;
+    private final double maxRadius;
+    private final double curve;
+    private final int reach;
+    private final Kernel[] kernels;
+
+    /**
+     * Constructs a DensityEstimator.
+     *
+     * @param maxRadius the blur radius of a cell with a single hit, in cells
+     * @param curve     how fast the radius shrinks as the hit count grows, flam3 uses 0.4
+     */
+    public DensityEstimator(double maxRadius, double curve) {
+        if (maxRadius < 0 || curve <= 0) {
+            throw new IllegalArgumentException("Density estimation needs a non-negative radius and a positive curve");
+        }
+        this.maxRadius = maxRadius;
+        this.curve = curve;
+        this.reach = (int) Math.ceil(maxRadius);
+        int steps = (int) Math.round(maxRadius * STEPS_PER_CELL);
+        this.kernels = new Kernel[steps + 1];
+        for (int step = 0; step <= steps; step++) {
+            kernels[step] = Kernel.of((double) step / STEPS_PER_CELL);
+        }
+    }
+
+    /**
+     * Smooths the histogram. The filtered densities are fractional, so they always go to a heap histogram
+     * of double cells, whatever memory the source lives in.
+     *
+     * @param source the accumulated histogram
+     * @return a new heap histogram of the same size holding the filtered densities
+     */
+    public Histogram estimate(Histogram source) {
+        DensityHistogram target = new DensityHistogram(source.width(), source.height());
+        int rowsPerBand = Math.max(MIN_ROWS_PER_BAND, 2 * reach);
+        int bands = (source.height() + rowsPerBand - 1) / rowsPerBand;
+        for (int parity = 0; parity < 2; parity++) {
+            int first = parity;
+            IntStream.range(0, (bands - first + 1) / 2).parallel().forEach(pair -> {
+                int band = first + 2 * pair;
+                scatterRows(source, target, band * rowsPerBand, Math.min(source.height(), (band + 1) * rowsPerBand));
+            });
+        }
+        return target;
+    }
+
+    /**
+     * Spreads the hits of a range of rows over their neighbourhoods.
+     *
+     * @param source  the accumulated histogram
+     * @param target  the filtered histogram
+     * @param fromRow the first row, inclusive
+     * @param toRow   the last row, exclusive
+     */
+    private void scatterRows(Histogram source, DensityHistogram target, int fromRow, int toRow) {
+        int width = source.width();
+        int height = source.height();
+        for (int y = fromRow; y < toRow; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                int hits = source.hitCount(index);
+                if (hits == 0) {
+                    continue;
+                }
+                double cellDensity = source.density(index);
+                double red = source.redSum(index) * cellDensity / hits;
+                double green = source.greenSum(index) * cellDensity / hits;
+                double blue = source.blueSum(index) * cellDensity / hits;
+                Kernel kernel = kernel(cellDensity);
+                for (int tap = 0; tap < kernel.weights().length; tap++) {
+                    int targetX = x + kernel.dx()[tap];
+                    int targetY = y + kernel.dy()[tap];
+                    if (targetX >= 0 && targetX < width && targetY >= 0 && targetY < height) {
+                        double weight = kernel.weights()[tap];
+                        target.splat(
+                            targetY * width + targetX,
+                            weight * cellDensity,
+                            weight * red,
+                            weight * green,
+                            weight * blue
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks the precomputed kernel for a density.
+     *
+     * @param cellDensity the density of the cell
+     * @return the kernel whose radius is closest to the one of the density
+     */
+    private Kernel kernel(double cellDensity) {
+        double radius = maxRadius / Math.pow(cellDensity, curve);
+        int step = (int) Math.round(radius * STEPS_PER_CELL);
+        return kernels[Math.min(step, kernels.length - 1)];
+    }
+
+    /**
+     * A normalized truncated Gaussian over a disc, stored as parallel arrays of offsets and weights.
+     *
+     * @param dx      the column offsets of the taps
+     * @param dy      the row offsets of the taps
+     * @param weights the weights of the taps, summing to one
+     */
+    private record Kernel(int[] dx, int[] dy, double[] weights) {
+        /**
+         * Builds the kernel of a radius. Radii below one cell keep the hits in their cell.
+         *
+         * @param radius the radius of the disc in cells
+         * @return the kernel
+         */
+        private static Kernel of(double radius) {
+            if (radius < 1) {
+                return new Kernel(new int[] {0}, new int[] {0}, new double[] {1.0});
+            }
+            int extent = (int) Math.floor(radius);
+            int taps = 0;
+            int[] dx = new int[(2 * extent + 1) * (2 * extent + 1)];
+            int[] dy = new int[dx.length];
+            double[] weights = new double[dx.length];
+            double sigma = radius * SIGMA_PER_RADIUS;
+            double sum = 0;
+            for (int y = -extent; y <= extent; y++) {
+                for (int x = -extent; x <= extent; x++) {
+                    double distanceSquared = x * x + y * y;
+                    if (distanceSquared <= radius * radius) {
+                        dx[taps] = x;
+                        dy[taps] = y;
+                        weights[taps] = Math.exp(-distanceSquared / (2 * sigma * sigma));
+                        sum += weights[taps];
+                        taps++;
+                    }
+                }
+            }
+            double[] normalized = new double[taps];
+            for (int tap = 0; tap < taps; tap++) {
+                normalized[tap] = weights[tap] / sum;
+            }
+            return new Kernel(Arrays.copyOf(dx, taps), Arrays.copyOf(dy, taps), normalized);
+        }
+    }
+}
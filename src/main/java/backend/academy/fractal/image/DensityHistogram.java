@@ -0,0 +1,113 @@
+package backend.academy.fractal.image;
+
+/**
+ * The DensityHistogram class is a heap-backed Histogram with fractional hits,
+ * produced by filters that spread the hits of a cell over its neighbours.
+ * The hit count of a cell is its rounded density, and the color sums are scaled to it,
+ * so the average color of a cell stays exact while its brightness follows the density.
+ */
+public final class DensityHistogram implements Histogram {
+    private final int width;
+    private final int height;
+    private final double[] density;
+    private final double[] red;
+    private final double[] green;
+    private final double[] blue;
+
+    /**
+     * Constructs an empty DensityHistogram.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     */
+    public DensityHistogram(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int size = Math.multiplyExact(width, height);
+        this.density = new double[size];
+        this.red = new double[size];
+        this.green = new double[size];
+        this.blue = new double[size];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void add(int index, int r, int g, int b) {
+        splat(index, 1, r, g, b);
+    }
+
+    @Override
+    public void add(int index, int count, long r, long g, long b) {
+        splat(index, count, r, g, b);
+    }
+
+    /**
+     * Adds a share of the hits of another cell.
+     *
+     * @param index  the flat index of the cell
+     * @param weight the number of hits to add, usually fractional
+     * @param r      the red sum of the added hits
+     * @param g      the green sum of the added hits
+     * @param b      the blue sum of the added hits
+     */
+    public void splat(int index, double weight, double r, double g, double b) {
+        density[index] += weight;
+        red[index] += r;
+        green[index] += g;
+        blue[index] += b;
+    }
+
+    @Override
+    public double density(int index) {
+        return density[index];
+    }
+
+    @Override
+    public int hitCount(int index) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.round(density[index]));
+    }
+
+    @Override
+    public long redSum(int index) {
+        return scaled(red, index);
+    }
+
+    @Override
+    public long greenSum(int index) {
+        return scaled(green, index);
+    }
+
+    @Override
+    public long blueSum(int index) {
+        return scaled(blue, index);
+    }
+
+    @Override
+    public void merge(Histogram other, int from, int to) {
+        if (other.width() != width || other.height() != height) {
+            throw new IllegalArgumentException("Histograms must have the same size");
+        }
+        for (int i = from; i < to; i++) {
+            double otherDensity = other.density(i);
+            int otherHits = other.hitCount(i);
+            if (otherDensity != 0 && otherHits != 0) {
+                double scale = otherDensity / otherHits;
+                splat(i, otherDensity, other.redSum(i) * scale, other.greenSum(i) * scale, other.blueSum(i) * scale);
+            }
+        }
+    }
+
+    private long scaled(double[] channel, int index) {
+        double cellDensity = density[index];
+        return cellDensity <= 0 ? 0 : Math.round(channel[index] / cellDensity * hitCount(index));
+    }
+}
@@ -0,0 +1,194 @@
+package backend.academy.fractal.image;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The Downsampler class reduces a supersampled histogram to the output size with a separable filter.
+ * Every output pixel gathers the cells around its center weighted by the filter kernel,
+ * first along the rows and then along the columns. The weights are precomputed once,
+ * because with an integer factor every output pixel sees the same pattern of cell offsets.
+ * Output rows are processed in parallel bands; a band filters the source rows it needs
+ * horizontally into a local buffer and then reduces them vertically.
+ * The weights sum to the factor in each direction, so an output pixel holds about as many hits
+ * as the cells it covers and tone mapping treats it like a pixel of a render without supersampling.
+ */
+public final class Downsampler {
+    private static final int ROWS_PER_BAND = 16;
+    private static final int CHANNELS = 4;
+    private static final int MAX_COMPONENT = 255;
+    private final int factor;
+    private final int firstTap;
+    private final double[] weights;
+
+    /**
+     * Constructs a Downsampler.
+     *
+     * @param filter the reconstruction filter
+     * @param factor the number of histogram cells per output pixel along each axis
+     */
+    public Downsampler(DownsamplingFilter filter, int factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("Supersampling factor must be positive");
+        }
+        this.factor = factor;
+        // cell j of an output pixel's block lies (j + 0.5) / factor - 0.5 output pixels from its center
+        int reach = (int) Math.ceil(filter.radius() * factor);
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        double[] raw = new double[factor + 2 * reach + 1];
+        for (int tap = -reach; tap < factor + reach; tap++) {
+            double distance = (tap + 0.5) / factor - 0.5;
+            if (Math.abs(distance) < filter.radius()) {
+                raw[tap + reach] = filter.weight(distance);
+                first = Math.min(first, tap);
+                last = Math.max(last, tap);
+            }
+        }
+        this.firstTap = first;
+        this.weights = new double[last - first + 1];
+        double sum = 0;
+        for (int tap = first; tap <= last; tap++) {
+            sum += raw[tap + reach];
+        }
+        for (int tap = first; tap <= last; tap++) {
+            weights[tap - first] = raw[tap + reach] * factor / sum;
+        }
+    }
+
+    /**
+     * Returns the number of histogram cells per output pixel along each axis.
+     *
+     * @return the supersampling factor
+     */
+    public int factor() {
+        return factor;
+    }
+
+    /**
+     * Reduces a supersampled histogram to the output size.
+     *
+     * @param source the histogram accumulated at factor times the output size
+     * @return a histogram of the output size
+     */
+    public Histogram downsample(Histogram source) {
+        if (source.width() % factor != 0 || source.height() % factor != 0) {
+            throw new IllegalArgumentException("The histogram size must be a multiple of the supersampling factor");
+        }
+        Histogram target = Histogram.create(source.width() / factor, source.height() / factor);
+        int bands = (target.height() + ROWS_PER_BAND - 1) / ROWS_PER_BAND;
+        IntStream.range(0, bands).parallel().forEach(band -> downsampleRows(
+            source, target, band * ROWS_PER_BAND, Math.min(target.height(), (band + 1) * ROWS_PER_BAND)
+        ));
+        return target;
+    }
+
+    /**
+     * Computes a band of output rows. Bands write disjoint cells of the target,
+     * so they can run concurrently on a plain histogram.
+     *
+     * @param source  the supersampled histogram
+     * @param target  the output histogram
+     * @param fromRow the first output row, inclusive
+     * @param toRow   the last output row, exclusive
+     */
+    private void downsampleRows(Histogram source, Histogram target, int fromRow, int toRow) {
+        int width = target.width();
+        int firstSourceRow = Math.max(0, fromRow * factor + firstTap);
+        int lastSourceRow = Math.min(source.height() - 1, (toRow - 1) * factor + firstTap + weights.length - 1);
+        int rows = lastSourceRow - firstSourceRow + 1;
+        // hits, red, green and blue of the horizontally filtered source rows, interleaved per output column
+        double[] filtered = new double[rows * width * CHANNELS];
+        for (int row = 0; row < rows; row++) {
+            filterRow(source, firstSourceRow + row, filtered, row * width * CHANNELS);
+        }
+        double[] pixel = new double[CHANNELS];
+        for (int y = fromRow; y < toRow; y++) {
+            for (int x = 0; x < width; x++) {
+                Arrays.fill(pixel, 0);
+                for (int tap = 0; tap < weights.length; tap++) {
+                    int sourceRow = y * factor + firstTap + tap;
+                    if (sourceRow >= firstSourceRow && sourceRow <= lastSourceRow) {
+                        int offset = ((sourceRow - firstSourceRow) * width + x) * CHANNELS;
+                        for (int channel = 0; channel < CHANNELS; channel++) {
+                            pixel[channel] += weights[tap] * filtered[offset + channel];
+                        }
+                    }
+                }
+                store(target, y * width + x, pixel);
+            }
+        }
+    }
+
+    /**
+     * Filters a source row horizontally into the buffer.
+     *
+     * @param source    the supersampled histogram
+     * @param sourceRow the row to filter
+     * @param filtered  the buffer receiving the channels of every output column
+     * @param offset    the position of the row in the buffer
+     */
+    private void filterRow(Histogram source, int sourceRow, double[] filtered, int offset) {
+        int sourceWidth = source.width();
+        int rowStart = sourceRow * sourceWidth;
+        int width = sourceWidth / factor;
+        for (int x = 0; x < width; x++) {
+            double hits = 0;
+            double red = 0;
+            double green = 0;
+            double blue = 0;
+            for (int tap = 0; tap < weights.length; tap++) {
+                int sourceColumn = x * factor + firstTap + tap;
+                if (sourceColumn >= 0 && sourceColumn < sourceWidth) {
+                    int index = rowStart + sourceColumn;
+                    int cellHits = source.hitCount(index);
+                    if (cellHits != 0) {
+                        double weight = weights[tap];
+                        hits += weight * cellHits;
+                        red += weight * source.redSum(index);
+                        green += weight * source.greenSum(index);
+                        blue += weight * source.blueSum(index);
+                    }
+                }
+            }
+            int cell = offset + x * CHANNELS;
+            filtered[cell] = hits;
+            filtered[cell + 1] = red;
+            filtered[cell + 2] = green;
+            filtered[cell + 3] = blue;
+        }
+    }
+
+    /**
+     * Stores a filtered pixel in the target. The hit count is rounded to a whole number,
+     * and the color sums are rescaled to it, so the average color is kept and stays within
+     * the component range even where negative kernel lobes overshoot.
+     *
+     * @param target the output histogram
+     * @param index  the flat index of the pixel
+     * @param pixel  the filtered hits, red, green and blue
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    private static void store(Histogram target, int index, double[] pixel) {
+        long hits = Math.round(pixel[0]);
+        if (hits <= 0) {
+            return;
+        }
+        int count = (int) Math.min(Integer.MAX_VALUE, hits);
+        target.add(index, count, sum(pixel[1], pixel[0], count), sum(pixel[2], pixel[0], count),
+            sum(pixel[3], pixel[0], count));
+    }
+
+    /**
+     * Rescales a filtered color sum to the rounded hit count.
+     *
+     * @param component the filtered color sum
+     * @param hits      the filtered hit count
+     * @param count     the rounded hit count
+     * @return the color sum of the stored pixel
+     */
+    private static long sum(double component, double hits, int count) {
+        double mean = Math.max(0, Math.min(MAX_COMPONENT, component / hits));
+        return Math.round(mean * count);
+    }
+}
@@ -0,0 +1,79 @@
+package backend.academy.fractal.image;
+
+/**
+ * Enum representing the reconstruction filters used to reduce a supersampled histogram to the output size.
+ * Every filter is a symmetric kernel measured in output pixels.
+ */
+@SuppressWarnings("checkstyle:MagicNumber")
+public enum DownsamplingFilter {
+    /**
+     * Averages the cells of every output pixel. Fastest, but leaves some aliasing.
+     */
+    BOX(0.5) {
+        @Override
+        public double weight(double x) {
+            return 1.0;
+        }
+    },
+
+    /**
+     * Linear falloff over two output pixels.
+     */
+    TENT(1.0) {
+        @Override
+        public double weight(double x) {
+            return 1.0 - Math.abs(x);
+        }
+    },
+
+    /**
+     * Gaussian falloff, the smoothest of the filters.
+     */
+    GAUSSIAN(1.5) {
+        @Override
+        public double weight(double x) {
+            return Math.exp(-2.0 * x * x);
+        }
+    },
+
+    /**
+     * Three-lobed windowed sinc, the sharpest of the filters.
+     */
+    LANCZOS(3.0) {
+        @Override
+        public double weight(double x) {
+            return sinc(x) * sinc(x / 3.0);
+        }
+    };
+
+    private final double radius;
+
+    DownsamplingFilter(double radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * Returns the distance from the center beyond which the kernel is zero.
+     *
+     * @return the radius in output pixels
+     */
+    public double radius() {
+        return radius;
+    }
+
+    /**
+     * Evaluates the kernel, not normalized.
+     *
+     * @param x the distance from the center in output pixels, within the radius
+     * @return the weight of a sample at that distance
+     */
+    public abstract double weight(double x);
+
+    private static double sinc(double x) {
+        if (x == 0) {
+            return 1.0;
+        }
+        double px = Math.PI * x;
+        return Math.sin(px) / px;
+    }
+}
@@ -1,17 +1,15 @@
 package backend.academy.fractal.image;
 
+import backend.academy.fractal.random.RandomSource;
 import backend.academy.fractal.transformations.Transformation;
 import backend.academy.fractal.units.AffineMatrix;
-import backend.academy.fractal.units.Pixel;
-import java.awt.Color;
+import backend.academy.fractal.units.Symmetry;
 import java.awt.image.BufferedImage;
-import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.zip.Deflater;
 
 /**
  * The FractalGenerator class is responsible for generating fractal images
@@ -19,16 +17,14 @@ import java.util.concurrent.Future;
  * It supports multithreading execution to increase performance.
  */
 public class FractalGenerator {
-    private static final double X_MIN = -1.2;
-    private static final double X_MAX = 1.2;
-    private static final double Y_MIN = -1.2;
-    private static final double Y_MAX = 1.2;
     private static final double GAMMA = 2.2;
-    private static final int INITIAL_ITER = -20;
-    private static final SecureRandom RANDOM = new SecureRandom();
     private final int width;
     private final int height;
     private final Transformation transformation;
+    private final RandomSource random;
+    private final RenderScheduler scheduler;
+    private final DensityEstimator densityEstimator;
+    private final ToneMapper toneMapper;
 
     /**
      * Constructs a FractalGenerator.
@@ -38,13 +34,74 @@ public class FractalGenerator {
      * @param transformation the transformation to apply during fractal generation
      */
     public FractalGenerator(int width, int height, Transformation transformation) {
+        this(width, height, transformation, RandomSource.create());
+    }
+
+    /**
+     * Constructs a FractalGenerator with the given source of randomness.
+     * Every render draws its seed from this source, so a seeded source makes renders reproducible
+     * regardless of the number of threads.
+     *
+     * @param width          the width of the generated image
+     * @param height         the height of the generated image
+     * @param transformation the transformation to apply during fractal generation
+     * @param random         the root random source of the renders
+     */
+    public FractalGenerator(int width, int height, Transformation transformation, RandomSource random) {
+        this(width, height, transformation, random, RenderScheduler.shared());
+    }
+
+    /**
+     * Constructs a FractalGenerator running its renders on the given scheduler.
+     *
+     * @param width          the width of the generated image
+     * @param height         the height of the generated image
+     * @param transformation the transformation to apply during fractal generation
+     * @param random         the root random source of the renders
+     * @param scheduler      the scheduler distributing the work of the renders
+     */
+    public FractalGenerator(
+        int width,
+        int height,
+        Transformation transformation,
+        RandomSource random,
+        RenderScheduler scheduler
+    ) {
+        this(width, height, transformation, random, scheduler, null, new ToneMapper(GAMMA));
+    }
+
+    /**
+     * Constructs a FractalGenerator with its own tone mapping, for example a different gamma or brightness,
+     * that smooths every histogram by density estimation before tone mapping if it is given a density estimator.
+     *
+     * @param width            the width of the generated image
+     * @param height           the height of the generated image
+     * @param transformation   the transformation to apply during fractal generation
+     * @param random           the root random source of the renders
+     * @param scheduler        the scheduler distributing the work of the renders
+     * @param densityEstimator the density estimation stage, or null to tone-map the histograms as they are
+     * @param toneMapper       the tone mapping of the images and previews
+     */
+    public FractalGenerator(
+        int width,
+        int height,
+        Transformation transformation,
+        RandomSource random,
+        RenderScheduler scheduler,
+        DensityEstimator densityEstimator,
+        ToneMapper toneMapper
+    ) {
         this.width = width;
         this.height = height;
         this.transformation = transformation;
+        this.random = random;
+        this.scheduler = scheduler;
+        this.densityEstimator = densityEstimator;
+        this.toneMapper = toneMapper;
     }
 
     /**
-     * Generates a fractal image.
+     * Generates a fractal image with rotational symmetry.
      *
      * @param maxIterations the maximum number of iterations for generating the fractal
      * @param num           the number of points to generate
@@ -60,262 +117,195 @@ public class FractalGenerator {
         int symmetry,
         int numThreads
     ) {
-        FractalImage generatedImage = FractalImage.create(width, height);
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        double angleIncrement = 2 * Math.PI / symmetry;
-
-        if (numThreads == 1) {
-            FractalImage threadImage = generateSnapshot(
-                num, maxIterations, matrices, symmetry, angleIncrement
-            );
-            mergeImages(generatedImage, threadImage);
-        } else {
-            // numThreads - 1 since main thread is used
-            ExecutorService executor = Executors.newFixedThreadPool(numThreads - 1);
-
-            int pointsPerThread = num / (numThreads - 1);
-            int remainingPoints = num % (numThreads - 1);
-
-            List<Future<FractalImage>> futures = new ArrayList<>();
-
-            for (int thread = 0; thread < numThreads - 1; thread++) {
-                // split the remaining points among the first few threads
-                int pointsForCurrentThread = pointsPerThread + (thread < remainingPoints ? 1 : 0);
-
-                Future<FractalImage> future = executor.submit(() -> generateSnapshot(
-                    pointsForCurrentThread, maxIterations, matrices, symmetry, angleIncrement
-                ));
-                futures.add(future);
-            }
-
-            for (Future<FractalImage> future : futures) {
-                try {
-                    FractalImage threadImage = future.get();
-                    mergeImages(generatedImage, threadImage);
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new RuntimeException("Some threads failed to complete", e);
-                }
-            }
-
-            executor.close();
-        }
-
-        correction(generatedImage);
-
-        return generateImage(image, generatedImage);
+        RenderOptions options = RenderOptions.threads(numThreads);
+        return toImage(start(maxIterations, num, matrices, Symmetry.rotational(symmetry), options).join());
     }
 
     /**
-     * Generates a fractal image.
+     * Generates a fractal image, running the chaos game as the options say.
      *
-     * @param num            the number of points to generate
-     * @param maxIterations  the maximum number of iterations for generating the fractal
-     * @param matrices       the affine transformation matrices
-     * @param symmetry       the symmetry coefficient of the fractal
-     * @param angleIncrement the angle increment for symmetry
-     * @return the generated fractal image
+     * @param maxIterations the maximum number of iterations for generating the fractal
+     * @param num           the number of points to generate
+     * @param matrices      the affine transformation matrices
+     * @param symmetry      the symmetry group applied to every point
+     * @param options       how to run the chaos game
+     * @return the generated fractal image as a BufferedImage
+     * @throws IOException if a checkpoint to resume from cannot be read
      */
-    private FractalImage generateSnapshot(
-        int num,
+    public BufferedImage generateFractal(
         int maxIterations,
+        int num,
         AffineMatrix[] matrices,
-        int symmetry,
-        double angleIncrement
-    ) {
-        FractalImage threadImage = FractalImage.create(width, height);
-        for (int points = 0; points < num; points++) {
-            double newX = RANDOM.nextDouble(X_MIN, X_MAX);
-            double newY = RANDOM.nextDouble(Y_MIN, Y_MAX);
-
-            for (int step = INITIAL_ITER; step < maxIterations; step++) {
-                int i = RANDOM.nextInt(matrices.length);
-                double xLinear = matrices[i].a() * newX + matrices[i].b() * newY + matrices[i].c();
-                double yLinear = matrices[i].d() * newX + matrices[i].e() * newY + matrices[i].f();
-
-                double[] nonLinearTransformation = transformation.transform(xLinear, yLinear);
-                newX = nonLinearTransformation[0];
-                newY = nonLinearTransformation[1];
-                if (step >= 0) {
-                    applySymmetry(
-                        symmetry, newX, newY, i, angleIncrement, matrices, threadImage
-                    );
-                }
-            }
-        }
-        return threadImage;
+        Symmetry symmetry,
+        RenderOptions options
+    ) throws IOException {
+        return toImage(accumulate(maxIterations, num, matrices, symmetry, options).histogram());
     }
 
     /**
-     * Applies symmetry to the generated fractal points.
+     * Runs the chaos game as the options say and returns the accumulated histogram instead of an image,
+     * for example to stream it into a file with {@link #writePng(Histogram, Path)}.
+     * A render with a time budget returns the points accumulated when the time is up,
+     * and a supersampled one returns the histogram reduced to the image size.
+     * The result also tells the seed the render drew its points with, which a resumed render takes
+     * from its checkpoint, and the number of points actually accumulated.
      *
-     * @param symmetry       the symmetry coefficient
-     * @param newX           the X coordinate of the point
-     * @param newY           the Y coordinate of the point
-     * @param i              the index of the affine matrix
-     * @param angleIncrement the angle increment for symmetry
-     * @param matrices       the affine transformation matrices
-     * @param threadImage    the image being generated by the current thread
+     * @param maxIterations the maximum number of iterations for generating the fractal
+     * @param num           the number of points to generate
+     * @param matrices      the affine transformation matrices
+     * @param symmetry      the symmetry group applied to every point
+     * @param options       how to run the chaos game
+     * @return the accumulated histogram, complete or partial, with its seed and number of points
+     * @throws IOException if a checkpoint to resume from cannot be read
      */
-    private void applySymmetry(
-        int symmetry,
-        double newX,
-        double newY,
-        int i,
-        double angleIncrement,
+    public RenderResult accumulate(
+        int maxIterations,
+        int num,
         AffineMatrix[] matrices,
-        FractalImage threadImage
-    ) {
-        for (int s = 0; s < symmetry; s++) {
-            double angle = s * angleIncrement;
-            double symX = newX * Math.cos(angle) - newY * Math.sin(angle);
-            double symY = newX * Math.sin(angle) + newY * Math.cos(angle);
-
-            if (belongsTo(symX, symY)) {
-                int x1 = width - (int) (((X_MAX - symX) / (X_MAX - X_MIN)) * width);
-                int y1 = height - (int) (((Y_MAX - symY) / (Y_MAX - Y_MIN)) * height);
-                if (x1 < width && y1 < height) {
-                    updateSymmetryPixel(x1, y1, matrices[i], threadImage);
-                }
-            }
+        Symmetry symmetry,
+        RenderOptions options
+    ) throws IOException {
+        if (options.checkpoints() != null) {
+            ChaosGame chaosGame = new ChaosGame(width, height, transformation, matrices, symmetry, maxIterations);
+            return options.checkpoints().render(
+                scheduler, chaosGame, num, options.threads(), options.mode(), random.nextLong());
+        }
+        if (options.downsampler() != null) {
+            int factor = options.downsampler().factor();
+            ChaosGame chaosGame = new ChaosGame(
+                width * factor, height * factor, transformation, matrices, symmetry, maxIterations);
+            Histogram supersampled = new CompactHistogram(chaosGame.width(), chaosGame.height());
+            RenderHandle handle = scheduler.start(chaosGame, num, options.threads(), random.nextLong(), supersampled);
+            handle.join();
+            return new RenderResult(
+                options.downsampler().downsample(supersampled), handle.seed(), handle.completedPoints());
         }
+        ChaosGame chaosGame = new ChaosGame(width, height, transformation, matrices, symmetry, maxIterations);
+        RenderHandle handle = begin(chaosGame, num, options);
+        Duration budget = options.timeBudget();
+        Histogram histogram = budget == null ? handle.join() : handle.awaitUntil(Instant.now().plus(budget));
+        return new RenderResult(histogram, handle.seed(), handle.completedPoints());
     }
 
     /**
-     * Updates the pixel in the fractal image with the symmetry effect.
+     * Starts generating a fractal in the background.
+     * The returned handle can cancel the render, bound it with a deadline and join it;
+     * the joining thread counts as one of the threads of the options.
+     * Subscribers of the preview publisher of the options receive the previews they have room for
+     * and the final frame once the handle is joined.
+     * Supersampled, checkpointed and time-limited renders only run through
+     * {@link #accumulate(int, int, AffineMatrix[], Symmetry, RenderOptions)}.
      *
-     * @param x1          the X coordinate of the pixel
-     * @param y1          the Y coordinate of the pixel
-     * @param matrix      the affine matrix
-     * @param threadImage the fractal image where symmetry pixels are updating
+     * @param maxIterations the maximum number of iterations for generating the fractal
+     * @param num           the number of points to generate
+     * @param matrices      the affine transformation matrices
+     * @param symmetry      the symmetry group applied to every point
+     * @param options       how to run the chaos game
+     * @return the handle of the started render
      */
-    private void updateSymmetryPixel(
-        int x1,
-        int y1,
-        AffineMatrix matrix,
-        FractalImage threadImage
+    public RenderHandle start(
+        int maxIterations,
+        int num,
+        AffineMatrix[] matrices,
+        Symmetry symmetry,
+        RenderOptions options
     ) {
-        if (threadImage.contains(x1, y1)) {
-            Pixel oldPixel = threadImage.pixel(x1, y1);
-            Pixel newPixel = new Pixel(
-                x1, y1,
-                (oldPixel.r() + matrix.red()) / 2,
-                (oldPixel.g() + matrix.green()) / 2,
-                (oldPixel.b() + matrix.blue()) / 2,
-                oldPixel.hitCount() + 1, 1
-            );
-            threadImage.updatePixel(x1, y1, newPixel);
-        } else {
-            Pixel pixel = new Pixel(
-                x1, y1,
-                matrix.red(), matrix.green(), matrix.blue(), 1, 1
-            );
-            threadImage.updatePixel(x1, y1, pixel);
+        if (options.downsampler() != null || options.checkpoints() != null || options.timeBudget() != null) {
+            throw new IllegalArgumentException("Only plain, targeted and progressive renders can be started");
         }
+        return begin(new ChaosGame(width, height, transformation, matrices, symmetry, maxIterations), num, options);
     }
 
     /**
-     * Merges the images generated by multiple threads into the main image.
+     * Computes the fingerprint of the flame this generator renders with the given parameters,
+     * which tells whether saved histograms can be merged.
      *
-     * @param mainImage   the main fractal image
-     * @param threadImage the fractal image generated by a thread
+     * @param maxIterations the maximum number of iterations for generating the fractal
+     * @param matrices      the affine transformation matrices
+     * @param symmetry      the symmetry group applied to every point
+     * @return the fingerprint of the flame
      */
-    private void mergeImages(FractalImage mainImage, FractalImage threadImage) {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Pixel threadPixel = threadImage.pixel(x, y);
-                if (threadPixel.hitCount() > 0) {
-                    if (mainImage.contains(x, y)) {
-                        Pixel mainPixel = mainImage.pixel(x, y);
-                        Pixel newPixel = new Pixel(
-                            x, y,
-                            (mainPixel.r() + threadPixel.r()) / 2,
-                            (mainPixel.g() + threadPixel.g()) / 2,
-                            (mainPixel.b() + threadPixel.b()) / 2,
-                            mainPixel.hitCount() + threadPixel.hitCount(), 1
-                        );
-                        mainImage.updatePixel(x, y, newPixel);
-                    } else {
-                        mainImage.updatePixel(x, y, threadPixel);
-                    }
-                }
-            }
-        }
+    public long fingerprint(int maxIterations, AffineMatrix[] matrices, Symmetry symmetry) {
+        return new ChaosGame(width, height, transformation, matrices, symmetry, maxIterations).fingerprint();
     }
 
     /**
-     * Checks if the given point belongs to the fractal area.
+     * Creates a publisher of previews tone-mapped like the images of this generator.
      *
-     * @param x the X coordinate of the point
-     * @param y the Y coordinate of the point
-     * @return true if the point belongs to the fractal area, false otherwise
+     * @return the preview publisher
      */
-    private static boolean belongsTo(double x, double y) {
-        return x >= X_MIN && x <= X_MAX && y >= Y_MIN && y <= Y_MAX;
+    public PreviewPublisher createPreviewPublisher() {
+        return new PreviewPublisher(toneMapper);
     }
 
     /**
-     * Applies gamma correction to the generated fractal image.
+     * Tone-maps an accumulated histogram, complete or partial, into an image,
+     * running the density estimation stage first if the generator has one.
      *
-     * @param image the fractal image to be corrected
+     * @param histogram the accumulated histogram
+     * @return the image as a BufferedImage
      */
-    private void correction(FractalImage image) {
-        double max = getMax(width, height, image);
-        for (int row = 0; row < width; row++) {
-            for (int col = 0; col < height; col++) {
-                Pixel pixel = image.data()[row][col];
-                double normalized = pixel.normal() / max;
-                double factor = Math.pow(normalized, 1.0 / GAMMA);
-                int red = (int) (pixel.r() * factor);
-                int green = (int) (pixel.g() * factor);
-                int blue = (int) (pixel.b() * factor);
-                image.updatePixel(row, col, new Pixel(
-                    pixel.x(), pixel.y(), red, green, blue, pixel.hitCount(), normalized));
-            }
-        }
+    public BufferedImage toImage(Histogram histogram) {
+        return toneMapper.toImage(estimate(histogram));
     }
 
     /**
-     * Gets the maximum normalized hit count in the fractal image.
+     * Tone-maps an accumulated histogram straight into a PNG file with the default compression
+     * and unfiltered scanlines, see {@link #writePng(Histogram, Path, PngFilter, int)}.
      *
-     * @param width  the width of the image
-     * @param height the height of the image
-     * @param image  the fractal image
-     * @return the maximum normalized hit count
+     * @param histogram the accumulated histogram
+     * @param path      the file to write
+     * @throws IOException if the file cannot be written
      */
-    private static double getMax(int width, int height, FractalImage image) {
-        double max = 0.0;
+    public void writePng(Histogram histogram, Path path) throws IOException {
+        writePng(histogram, path, PngFilter.NONE, Deflater.DEFAULT_COMPRESSION);
+    }
 
-        for (int row = 0; row < width; row++) {
-            for (int col = 0; col < height; col++) {
-                Pixel pixel = image.data()[row][col];
-                if (pixel.hitCount() != 0) {
-                    double normal = Math.log10(pixel.hitCount());
-                    if (normal > max) {
-                        max = normal;
-                    }
-                    image.updatePixel(row, col, new Pixel(
-                        pixel.x(), pixel.y(), pixel.r(), pixel.g(), pixel.b(), pixel.hitCount(), normal));
-                }
-            }
+    /**
+     * Tone-maps an accumulated histogram straight into a PNG file, row band by row band,
+     * so that the pixels of the whole image never exist in memory at once.
+     * The scanlines are filtered and compressed in parallel on the pool of the scheduler.
+     *
+     * @param histogram the accumulated histogram
+     * @param path      the file to write
+     * @param filter    the filter of the scanlines
+     * @param level     the compression level, 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @throws IOException if the file cannot be written
+     */
+    public void writePng(Histogram histogram, Path path, PngFilter filter, int level) throws IOException {
+        try (PngWriter writer = new PngWriter(
+            path, histogram.width(), histogram.height(), level, filter, scheduler.executor())) {
+            toneMapper.write(estimate(histogram), writer, scheduler.executor());
         }
-        return max;
     }
 
     /**
-     * Generates the final image from the fractal image data.
+     * Starts a render that runs on the scheduler as it is: plain, into a target histogram or with previews.
      *
-     * @param image          the BufferedImage to be generated
-     * @param generatedImage the fractal image data
-     * @return the generated BufferedImage
+     * @param chaosGame the flame to render
+     * @param num       the number of points to generate
+     * @param options   how to run the chaos game
+     * @return the handle of the started render
      */
-    private BufferedImage generateImage(BufferedImage image, FractalImage generatedImage) {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                Pixel pixel = generatedImage.pixel(x, y);
-                int color = new Color(pixel.r(), pixel.g(), pixel.b()).getRGB();
-                image.setRGB(x, y, color);
-            }
+    private RenderHandle begin(ChaosGame chaosGame, int num, RenderOptions options) {
+        long seed = random.nextLong();
+        if (options.histogram() != null) {
+            return scheduler.start(chaosGame, num, options.threads(), seed, options.histogram());
         }
-        return image;
+        if (options.previews() != null) {
+            return scheduler.start(chaosGame, num, options.threads(), AccumulationMode.SHARED, seed,
+                options.previews(), options.previewEvery());
+        }
+        return scheduler.start(chaosGame, num, options.threads(), options.mode(), seed);
+    }
+
+    /**
+     * Runs the density estimation stage if the generator has one.
+     *
+     * @param histogram the accumulated histogram
+     * @return the smoothed histogram, or the given one without a density estimation stage
+     */
+    private Histogram estimate(Histogram histogram) {
+        return densityEstimator == null ? histogram : densityEstimator.estimate(histogram);
     }
 }
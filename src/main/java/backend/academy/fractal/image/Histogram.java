@@ -0,0 +1,188 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.units.Pixel;
+
+/**
+ * The Histogram interface represents the accumulation buffer of the chaos game.
+ * Every cell stores the number of hits and the sums of the red, green and blue components
+ * of the colors that landed in it. Cells are addressed by a flat index {@code y * width + x},
+ * which lets implementations keep every channel in a primitive array and update it
+ * without allocating anything per hit.
+ */
+public interface Histogram {
+
+    /**
+     * Creates a new heap-backed Histogram with the specified width and height.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     * @return a new empty Histogram with the specified dimensions
+     */
+    static Histogram create(int width, int height) {
+        return new ArrayHistogram(width, height);
+    }
+
+    /**
+     * Creates a new heap-backed Histogram that can be updated by several threads at once.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     * @return a new empty thread-safe Histogram with the specified dimensions
+     */
+    static Histogram createConcurrent(int width, int height) {
+        return new ConcurrentHistogram(width, height);
+    }
+
+    /**
+     * Returns the width of the histogram.
+     *
+     * @return the width in cells
+     */
+    int width();
+
+    /**
+     * Returns the height of the histogram.
+     *
+     * @return the height in cells
+     */
+    int height();
+
+    /**
+     * Returns the number of cells in the histogram.
+     *
+     * @return width multiplied by height
+     */
+    default int size() {
+        return width() * height();
+    }
+
+    /**
+     * Converts the coordinates of a cell to its flat index.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the flat index of the cell
+     */
+    default int index(int x, int y) {
+        return y * width() + x;
+    }
+
+    /**
+     * Records a single hit of the given color in the cell with the given index.
+     *
+     * @param index the flat index of the cell
+     * @param red   the red component of the color
+     * @param green the green component of the color
+     * @param blue  the blue component of the color
+     */
+    void add(int index, int red, int green, int blue);
+
+    /**
+     * Adds the accumulated totals of a cell, for example ones read back from a file.
+     *
+     * @param index the flat index of the cell
+     * @param hits  the number of hits to add
+     * @param red   the sum of the red components to add
+     * @param green the sum of the green components to add
+     * @param blue  the sum of the blue components to add
+     */
+    void add(int index, int hits, long red, long green, long blue);
+
+    /**
+     * Returns the number of hits of the cell with the given index.
+     *
+     * @param index the flat index of the cell
+     * @return the hit count of the cell
+     */
+    int hitCount(int index);
+
+    /**
+     * Returns the density of the cell, which is its hit count unless the histogram was filtered
+     * and holds fractional hits. The tone mapper takes the brightness of a cell from its density
+     * and the average color from the color sums and the hit count.
+     *
+     * @param index the flat index of the cell
+     * @return the density of the cell
+     */
+    default double density(int index) {
+        return hitCount(index);
+    }
+
+    /**
+     * Returns the sum of the red components that landed in the cell.
+     *
+     * @param index the flat index of the cell
+     * @return the accumulated red component
+     */
+    long redSum(int index);
+
+    /**
+     * Returns the sum of the green components that landed in the cell.
+     *
+     * @param index the flat index of the cell
+     * @return the accumulated green component
+     */
+    long greenSum(int index);
+
+    /**
+     * Returns the sum of the blue components that landed in the cell.
+     *
+     * @param index the flat index of the cell
+     * @return the accumulated blue component
+     */
+    long blueSum(int index);
+
+    /**
+     * Adds every cell of another histogram of the same size to this one.
+     *
+     * @param other the histogram to merge into this one
+     */
+    default void merge(Histogram other) {
+        merge(other, 0, size());
+    }
+
+    /**
+     * Adds the cells of another histogram of the same size within the given index range to this one.
+     * Disjoint ranges may be merged concurrently by different threads.
+     *
+     * @param other the histogram to merge into this one
+     * @param from  the first flat index to merge, inclusive
+     * @param to    the last flat index to merge, exclusive
+     */
+    void merge(Histogram other, int from, int to);
+
+    /**
+     * Checks if the cell at the specified coordinates was hit before.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell's hit count is greater than 0, false otherwise
+     */
+    default boolean contains(int x, int y) {
+        return hitCount(index(x, y)) > 0;
+    }
+
+    /**
+     * Builds a Pixel view of the cell at the specified coordinates.
+     * The color of the pixel is the average of all colors that landed in the cell.
+     * This method allocates and is meant for inspection, not for the render loop.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the Pixel describing the cell
+     */
+    default Pixel pixel(int x, int y) {
+        int index = index(x, y);
+        int hits = hitCount(index);
+        if (hits == 0) {
+            return new Pixel(x, y, 0, 0, 0, 0, 1);
+        }
+        return new Pixel(
+            x, y,
+            (int) (redSum(index) / hits),
+            (int) (greenSum(index) / hits),
+            (int) (blueSum(index) / hits),
+            hits, 1
+        );
+    }
+}
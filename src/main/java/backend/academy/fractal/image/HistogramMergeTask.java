@@ -0,0 +1,46 @@
+package backend.academy.fractal.image;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The HistogramMergeTask class merges one histogram into another on a fork/join pool.
+ * The flat index range is split in halves until it fits into a band of a few rows,
+ * and every band is added with plain array loops, so the merge scales with the number of cores.
+ */
+public final class HistogramMergeTask extends RecursiveAction {
+    private static final int BAND_SIZE = 1 << 16;
+    private final Histogram target;
+    private final Histogram source;
+    private final int from;
+    private final int to;
+
+    /**
+     * Constructs a task merging the whole source histogram into the target.
+     *
+     * @param target the histogram receiving the hits
+     * @param source the histogram whose hits are added
+     */
+    public HistogramMergeTask(Histogram target, Histogram source) {
+        this(target, source, 0, target.size());
+    }
+
+    private HistogramMergeTask(Histogram target, Histogram source, int from, int to) {
+        this.target = target;
+        this.source = source;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= BAND_SIZE) {
+            target.merge(source, from, to);
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new HistogramMergeTask(target, source, from, middle),
+                new HistogramMergeTask(target, source, middle, to)
+            );
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package backend.academy.fractal.image;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -32,4 +33,22 @@ public class ImageUtils {
             throw new RuntimeException("Failed to save image", e);
         }
     }
+
+    /**
+     * Encodes a BufferedImage in the specified format in memory.
+     *
+     * @param image  the BufferedImage to encode
+     * @param format the format to encode the image in
+     * @return the encoded image
+     * @throws RuntimeException if an error occurs while encoding the image
+     */
+    public static byte[] encode(BufferedImage image, ImageFormat format) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, format.name(), output);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode image", e);
+        }
+        return output.toByteArray();
+    }
 }
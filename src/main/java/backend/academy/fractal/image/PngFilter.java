@@ -0,0 +1,123 @@
+package backend.academy.fractal.image;
+
+/**
+ * Enum representing the PNG scanline filters. A filter replaces every byte of a scanline
+ * by its difference to a prediction from the bytes to the left of it and above it,
+ * which turns smooth gradients into runs of small numbers that deflate compresses better.
+ */
+@SuppressWarnings("checkstyle:MagicNumber")
+public enum PngFilter {
+    /**
+     * Keeps the bytes as they are. Fastest, and enough for images that are mostly flat background.
+     */
+    NONE(0),
+
+    /**
+     * Predicts every byte by the same channel of the pixel to the left.
+     */
+    SUB(1),
+
+    /**
+     * Predicts every byte by the same channel of the pixel above.
+     */
+    UP(2),
+
+    /**
+     * Predicts every byte by the average of the pixels to the left and above.
+     */
+    AVERAGE(3),
+
+    /**
+     * Predicts every byte by whichever of the pixels to the left, above and above-left
+     * is closest to their linear estimate.
+     */
+    PAETH(4),
+
+    /**
+     * Picks for every scanline the filter whose output has the smallest sum of absolute differences,
+     * the heuristic recommended by the PNG specification.
+     */
+    ADAPTIVE(-1);
+
+    private static final int FILTER_TYPES = 5;
+    private final int type;
+
+    PngFilter(int type) {
+        this.type = type;
+    }
+
+    /**
+     * Filters a scanline.
+     *
+     * @param row           the bytes of the scanline
+     * @param previous      the bytes of the scanline above, all zero for the first scanline
+     * @param bytesPerPixel the number of bytes of a pixel
+     * @param out           the destination buffer
+     * @param offset        the position of the filter type byte in the destination,
+     *                      followed by the filtered bytes
+     */
+    public void apply(byte[] row, byte[] previous, int bytesPerPixel, byte[] out, int offset) {
+        int chosen = type >= 0 ? type : cheapest(row, previous, bytesPerPixel);
+        out[offset] = (byte) chosen;
+        for (int i = 0; i < row.length; i++) {
+            out[offset + 1 + i] = (byte) (row[i] - predict(chosen, row, previous, bytesPerPixel, i));
+        }
+    }
+
+    /**
+     * Finds the filter type with the smallest sum of absolute filtered values over a scanline.
+     *
+     * @param row           the bytes of the scanline
+     * @param previous      the bytes of the scanline above
+     * @param bytesPerPixel the number of bytes of a pixel
+     * @return the cheapest filter type
+     */
+    private static int cheapest(byte[] row, byte[] previous, int bytesPerPixel) {
+        int best = 0;
+        long bestCost = Long.MAX_VALUE;
+        for (int candidate = 0; candidate < FILTER_TYPES; candidate++) {
+            long cost = 0;
+            for (int i = 0; i < row.length && cost < bestCost; i++) {
+                cost += Math.abs((byte) (row[i] - predict(candidate, row, previous, bytesPerPixel, i)));
+            }
+            if (cost < bestCost) {
+                best = candidate;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Computes the prediction of a filter type for a single byte.
+     *
+     * @param type          the filter type
+     * @param row           the bytes of the scanline
+     * @param previous      the bytes of the scanline above
+     * @param bytesPerPixel the number of bytes of a pixel
+     * @param i             the position of the byte
+     * @return the predicted value between 0 and 255
+     */
+    private static int predict(int type, byte[] row, byte[] previous, int bytesPerPixel, int i) {
+        int left = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+        int up = previous[i] & 0xFF;
+        return switch (type) {
+            case 0 -> 0;
+            case 1 -> left;
+            case 2 -> up;
+            case 3 -> (left + up) >>> 1;
+            default -> paeth(left, up, i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0);
+        };
+    }
+
+    private static int paeth(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int toLeft = Math.abs(estimate - left);
+        int toUp = Math.abs(estimate - up);
+        int toUpLeft = Math.abs(estimate - upLeft);
+        if (toLeft <= toUp && toLeft <= toUpLeft) {
+            return left;
+        }
+        return toUp <= toUpLeft ? up : upLeft;
+    }
+}
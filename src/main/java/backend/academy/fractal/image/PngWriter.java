@@ -0,0 +1,349 @@
+package backend.academy.fractal.image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The PngWriter class writes an 8-bit RGB PNG file row by row, without a BufferedImage or ImageIO.
+ * The rows are cut into blocks of about 128 KiB of scanlines that are filtered and deflated
+ * independently on an executor, the way pigz does it: every block is primed with the last 32 KiB
+ * of the block before it as a preset dictionary and ends with a sync flush on a byte boundary,
+ * so the raw deflate outputs concatenate into one zlib stream that compresses nearly as well
+ * as a sequential one. The writer adds the zlib header and the Adler-32 of all filtered bytes itself
+ * and writes the stream in IDAT chunks in row order. Only a bounded number of blocks is in flight,
+ * so the memory of the writer does not grow with the image.
+ */
+public final class PngWriter implements AutoCloseable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int BLOCK_SIZE = 1 << 17;
+    private static final int DICTIONARY_SIZE = 1 << 15;
+    private static final int MAX_PENDING_BLOCKS = 2 * Runtime.getRuntime().availableProcessors();
+    private static final int BYTES_PER_PIXEL = 3;
+    private static final int BIT_DEPTH = 8;
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int IHDR_SIZE = 13;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int level;
+    private final PngFilter filter;
+    private final Executor executor;
+    private final int rowsPerBlock;
+    private final Queue<Block> pending = new ArrayDeque<>();
+    private final Adler32 checksum = new Adler32();
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkSize;
+    private int rows;
+    private int[] lastRow;
+    private CompletableFuture<byte[]> lastFiltered;
+
+    /**
+     * Creates the file and writes the header of the image. The rows are not filtered
+     * and are compressed on the thread that writes them.
+     *
+     * @param path   the file to write, replaced if it exists
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param level  the compression level, 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @throws IOException if the file cannot be written
+     */
+    public PngWriter(Path path, int width, int height, int level) throws IOException {
+        this(path, width, height, level, PngFilter.NONE, Runnable::run);
+    }
+
+    /**
+     * Creates the file and writes the header of the image.
+     *
+     * @param path     the file to write, replaced if it exists
+     * @param width    the width of the image
+     * @param height   the height of the image
+     * @param level    the compression level, 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param filter   the filter of the scanlines
+     * @param executor the executor filtering and compressing the blocks
+     * @throws IOException if the file cannot be written
+     */
+    public PngWriter(Path path, int width, int height, int level, PngFilter filter, Executor executor)
+        throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("The image must not be empty");
+        }
+        boolean validLevel = level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION;
+        if (!validLevel && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("The compression level must be between 0 and 9");
+        }
+        this.width = width;
+        this.height = height;
+        this.level = level;
+        this.filter = filter;
+        this.executor = executor;
+        this.rowsPerBlock = Math.max(1, BLOCK_SIZE / scanlineLength());
+        this.channel = FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            writeFully(ByteBuffer.wrap(SIGNATURE));
+            ByteBuffer header = ByteBuffer.allocate(IHDR_SIZE)
+                .putInt(width)
+                .putInt(height)
+                .put((byte) BIT_DEPTH)
+                .put((byte) COLOR_TYPE_RGB)
+                // deflate compression, adaptive filtering, no interlace
+                .put((byte) 0)
+                .put((byte) 0)
+                .put((byte) 0);
+            writeChunk("IHDR", header.array(), IHDR_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        append(zlibHeader(level), 2);
+    }
+
+    /**
+     * Queues the next rows of the image for filtering and compression, writing out the blocks
+     * that are done when too many are in flight. The rows are copied, so the buffer can be reused.
+     *
+     * @param pixels the rows as packed RGB integers in row-major order
+     * @param count  the number of rows to write from the start of the buffer
+     * @throws IOException if the file cannot be written
+     */
+    public void writeRows(int[] pixels, int count) throws IOException {
+        if (rows + count > height) {
+            throw new IllegalStateException("The image has only " + height + " rows");
+        }
+        for (int from = 0; from < count; from += rowsPerBlock) {
+            int blockRows = Math.min(rowsPerBlock, count - from);
+            int[] block = Arrays.copyOfRange(pixels, from * width, (from + blockRows) * width);
+            int[] above = lastRow;
+            lastRow = Arrays.copyOfRange(block, (blockRows - 1) * width, blockRows * width);
+            rows += blockRows;
+            boolean last = rows == height;
+
+            CompletableFuture<byte[]> filtered = CompletableFuture.supplyAsync(
+                () -> filter(block, blockRows, above), executor);
+            CompletableFuture<byte[]> compressed = lastFiltered == null
+                ? filtered.thenApplyAsync(data -> deflate(data, null, last), executor)
+                : filtered.thenCombineAsync(lastFiltered, (data, before) -> deflate(data, before, last), executor);
+            pending.add(new Block(filtered, compressed));
+            lastFiltered = filtered;
+            while (pending.size() > MAX_PENDING_BLOCKS) {
+                writeBlock(pending.remove());
+            }
+        }
+    }
+
+    /**
+     * Waits for the blocks in flight, writes the end of the image and closes the file.
+     *
+     * @throws IOException           if the file cannot be written
+     * @throws IllegalStateException if fewer rows than the height of the image were written
+     */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            if (rows == height) {
+                while (!pending.isEmpty()) {
+                    writeBlock(pending.remove());
+                }
+                long adler = checksum.getValue();
+                append(ByteBuffer.allocate(Integer.BYTES).putInt((int) adler).array(), Integer.BYTES);
+                writeChunk("IDAT", chunk, chunkSize);
+                writeChunk("IEND", chunk, 0);
+            }
+        } finally {
+            for (Block block : pending) {
+                block.compressed().cancel(false);
+            }
+            pending.clear();
+        }
+        if (rows != height) {
+            throw new IllegalStateException("Only " + rows + " of " + height + " rows were written");
+        }
+    }
+
+    /**
+     * Packs and filters the rows of a block into scanlines.
+     *
+     * @param block  the rows as packed RGB integers
+     * @param count  the number of rows
+     * @param above  the row above the block, or null for the first block
+     * @return the filtered scanlines, each starting with its filter type
+     */
+    private byte[] filter(int[] block, int count, int[] above) {
+        int length = scanlineLength();
+        byte[] filtered = new byte[count * length];
+        byte[] previous = new byte[width * BYTES_PER_PIXEL];
+        byte[] row = new byte[width * BYTES_PER_PIXEL];
+        if (above != null) {
+            pack(above, 0, previous);
+        }
+        for (int y = 0; y < count; y++) {
+            pack(block, y * width, row);
+            filter.apply(row, previous, BYTES_PER_PIXEL, filtered, y * length);
+            byte[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return filtered;
+    }
+
+    /**
+     * Deflates the filtered scanlines of a block into raw deflate data that continues the stream
+     * of the blocks before it.
+     *
+     * @param data       the filtered scanlines
+     * @param before     the filtered scanlines of the previous block, or null for the first block
+     * @param last       whether this is the last block, which finishes the stream
+     * @return the compressed data
+     */
+    private byte[] deflate(byte[] data, byte[] before, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (before != null) {
+                int size = Math.min(DICTIONARY_SIZE, before.length);
+                deflater.setDictionary(before, before.length - size, size);
+            }
+            deflater.setInput(data);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[CHUNK_SIZE];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // a sync flush ends the block on a byte boundary, so the next block can follow it directly
+                int written;
+                do {
+                    written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    output.write(buffer, 0, written);
+                } while (written == buffer.length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Waits for a block and appends its compressed data to the stream.
+     *
+     * @param block the oldest block in flight
+     * @throws IOException if the file cannot be written
+     */
+    private void writeBlock(Block block) throws IOException {
+        byte[] compressed = block.compressed().join();
+        checksum.update(block.filtered().join());
+        append(compressed, compressed.length);
+    }
+
+    /**
+     * Appends bytes of the zlib stream to the pending IDAT chunk, writing the chunk out whenever it is full.
+     *
+     * @param data   the buffer holding the bytes
+     * @param length the number of bytes at the start of the buffer
+     * @throws IOException if the file cannot be written
+     */
+    private void append(byte[] data, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int copied = Math.min(length - offset, CHUNK_SIZE - chunkSize);
+            System.arraycopy(data, offset, chunk, chunkSize, copied);
+            chunkSize += copied;
+            offset += copied;
+            if (chunkSize == CHUNK_SIZE) {
+                writeChunk("IDAT", chunk, chunkSize);
+                chunkSize = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes a chunk: its length, its type, its data and the CRC of the type and the data.
+     *
+     * @param type   the four-letter chunk type
+     * @param data   the buffer holding the data
+     * @param length the number of bytes of data at the start of the buffer
+     * @throws IOException if the file cannot be written
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        writeFully(ByteBuffer.allocate(Integer.BYTES + typeBytes.length).putInt(length).put(typeBytes).flip());
+        writeFully(ByteBuffer.wrap(data, 0, length));
+        writeFully(ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).flip());
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private int scanlineLength() {
+        return 1 + width * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * Unpacks a row of packed RGB integers into bytes.
+     *
+     * @param pixels the packed pixels
+     * @param offset the index of the first pixel of the row
+     * @param row    the destination, three bytes per pixel
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    private static void pack(int[] pixels, int offset, byte[] row) {
+        for (int x = 0, i = 0; i < row.length; x++, i += BYTES_PER_PIXEL) {
+            int rgb = pixels[offset + x];
+            row[i] = (byte) (rgb >>> 16);
+            row[i + 1] = (byte) (rgb >>> 8);
+            row[i + 2] = (byte) rgb;
+        }
+    }
+
+    /**
+     * Builds the two-byte zlib header of a deflate stream with a 32 KiB window.
+     *
+     * @param level the compression level, only recorded as a hint for decoders
+     * @return the header
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    private static byte[] zlibHeader(int level) {
+        int compressionMethod = 0x78;
+        int hint;
+        if (level == Deflater.DEFAULT_COMPRESSION || level == 6) {
+            hint = 2;
+        } else if (level < 2) {
+            hint = 0;
+        } else {
+            hint = level < 6 ? 1 : 3;
+        }
+        int flags = hint << 6;
+        // the header read as a big-endian number must be a multiple of 31
+        flags += 31 - ((compressionMethod << 8) + flags) % 31;
+        return new byte[] {(byte) compressionMethod, (byte) flags};
+    }
+
+    /**
+     * A block of rows in flight.
+     *
+     * @param filtered   the future of the filtered scanlines, which the checksum covers
+     * @param compressed the future of the compressed scanlines
+     */
+    private record Block(CompletableFuture<byte[]> filtered, CompletableFuture<byte[]> compressed) {
+    }
+}
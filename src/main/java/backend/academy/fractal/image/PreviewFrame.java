@@ -0,0 +1,13 @@
+package backend.academy.fractal.image;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The PreviewFrame record represents a tone-mapped snapshot of a render in progress.
+ *
+ * @param image    the tone-mapped snapshot
+ * @param progress the share of the batches completed when the snapshot was taken, between 0 and 1
+ * @param last     true for the final frame of the render
+ */
+public record PreviewFrame(BufferedImage image, double progress, boolean last) {
+}
@@ -0,0 +1,106 @@
+package backend.academy.fractal.image;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * The PreviewPublisher class publishes tone-mapped snapshots of a progressive render.
+ * At every milestone the live shared histogram is tone-mapped on another thread while the workers
+ * keep accumulating into it. A milestone reached while the previous snapshot is still being
+ * prepared is skipped, and a frame a subscriber has no room for is dropped for that subscriber,
+ * so a slow consumer never stalls the render. The final frame is published when the render is joined:
+ * no preview is offered after it, and it is handed to every subscriber on the executor,
+ * waiting for room instead of being dropped.
+ */
+public final class PreviewPublisher implements Flow.Publisher<PreviewFrame>, RenderListener {
+    private static final int BUFFER_CAPACITY = 2;
+    private final SubmissionPublisher<PreviewFrame> publisher;
+    private final ToneMapper toneMapper;
+    private final Executor executor;
+    private final Object lock = new Object();
+    private boolean completed;
+    private CompletableFuture<Void> preview = CompletableFuture.completedFuture(null);
+
+    /**
+     * Constructs a PreviewPublisher preparing and delivering the frames on the common pool.
+     *
+     * @param toneMapper the tone mapper of the snapshots
+     */
+    public PreviewPublisher(ToneMapper toneMapper) {
+        this(toneMapper, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a PreviewPublisher.
+     *
+     * @param toneMapper the tone mapper of the snapshots
+     * @param executor   the executor preparing and delivering the frames
+     */
+    public PreviewPublisher(ToneMapper toneMapper, Executor executor) {
+        this.toneMapper = toneMapper;
+        this.executor = executor;
+        this.publisher = new SubmissionPublisher<>(executor, BUFFER_CAPACITY);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super PreviewFrame> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void onMilestone(RenderHandle handle) {
+        Histogram live = handle.live();
+        if (live == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (completed || !preview.isDone()) {
+                return;
+            }
+            double progress = handle.progress();
+            preview = CompletableFuture.runAsync(
+                () -> offerPreview(new PreviewFrame(toneMapper.toImage(live), progress, false)), executor);
+        }
+    }
+
+    @Override
+    public void onComplete(RenderHandle handle, Histogram histogram) {
+        PreviewFrame frame = new PreviewFrame(toneMapper.toImage(histogram), handle.progress(), true);
+        CompletableFuture<Void> running;
+        synchronized (lock) {
+            completed = true;
+            running = preview;
+        }
+        // the final frame waits for room in the buffers, which must not block the render
+        running.handle((ignored, error) -> null).thenRunAsync(() -> {
+            publisher.submit(frame);
+            publisher.close();
+        }, executor);
+    }
+
+    @Override
+    public void onFailure(Throwable error) {
+        synchronized (lock) {
+            completed = true;
+        }
+        publisher.closeExceptionally(error);
+    }
+
+    /**
+     * Offers a preview unless the render is already complete.
+     * The check and the offer hold the lock, so a preview never follows the final frame.
+     *
+     * @param frame the preview
+     */
+    private void offerPreview(PreviewFrame frame) {
+        synchronized (lock) {
+            if (!completed) {
+                // never block the render: a subscriber that is behind misses this frame
+                publisher.offer(frame, (subscriber, dropped) -> false);
+            }
+        }
+    }
+}
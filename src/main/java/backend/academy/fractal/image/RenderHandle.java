@@ -0,0 +1,383 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.random.RandomSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The RenderHandle class controls a render running on a {@link RenderScheduler}.
+ * The points of the render are cut into batches handed out from a shared counter.
+ * Before taking a batch every participant checks whether the render was cancelled
+ * or ran out of time, so a render stops within one batch and keeps everything accumulated so far.
+ * The thread that joins the render takes batches as well until none are left.
+ * An optional {@link RenderListener} is told whenever another milestone of points is processed
+ * and once the render is joined.
+ */
+public final class RenderHandle {
+    private static final int STEPS_PER_BATCH = 1 << 16;
+    static final RenderListener NO_LISTENER = new RenderListener() {
+    };
+    private final ForkJoinPool pool;
+    private final ChaosGame chaosGame;
+    private final int num;
+    private final int batchSize;
+    private final int batches;
+    private final long seed;
+    private final Histogram shared;
+    private final RenderListener listener;
+    private final int milestoneBatches;
+    private final int firstBatch;
+    private final AtomicInteger nextBatch;
+    private final AtomicInteger completedBatches = new AtomicInteger();
+    private final int helperCount;
+    private final AtomicInteger unstartedHelpers;
+    private final BlockingQueue<HelperResult> helperResults = new LinkedBlockingQueue<>();
+    private volatile boolean cancelled;
+    private volatile long deadline;
+    private volatile boolean hasDeadline;
+    private Histogram result;
+    private RuntimeException failure;
+
+    private RenderHandle(
+        ForkJoinPool pool,
+        ChaosGame chaosGame,
+        int num,
+        int helperCount,
+        Histogram shared,
+        long seed,
+        RenderListener listener,
+        int milestonePoints,
+        int firstBatch
+    ) {
+        this.pool = pool;
+        this.chaosGame = chaosGame;
+        this.num = num;
+        this.batchSize = Math.max(1, STEPS_PER_BATCH / chaosGame.stepsPerPoint());
+        this.batches = Math.ceilDiv(num, batchSize);
+        this.seed = seed;
+        this.firstBatch = Math.min(firstBatch, batches);
+        this.nextBatch = new AtomicInteger(this.firstBatch);
+        this.listener = listener;
+        this.milestoneBatches = Math.max(1, milestonePoints / batchSize);
+        this.shared = shared;
+        this.helperCount = helperCount;
+        this.unstartedHelpers = new AtomicInteger(helperCount);
+    }
+
+    /**
+     * Starts a render on the given pool.
+     *
+     * @param pool       the pool running the helper threads
+     * @param chaosGame  the flame to render
+     * @param num        the number of points to generate
+     * @param numThreads the number of threads working on the render, including the joining one
+     * @param mode       whether participants fill their own histograms or share a single one
+     * @param seed       the seed of the render
+     * @return the handle of the started render
+     */
+    static RenderHandle start(
+        ForkJoinPool pool,
+        ChaosGame chaosGame,
+        int num,
+        int numThreads,
+        AccumulationMode mode,
+        long seed
+    ) {
+        Histogram shared = sharedHistogram(chaosGame, mode, numThreads > 1);
+        return start(pool, chaosGame, num, numThreads, shared, seed, NO_LISTENER, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Creates the histogram the participants of a render share, if they share one.
+     * A single participant fills a plain histogram, unless someone reads it while it grows.
+     *
+     * @param chaosGame  the flame to render
+     * @param mode       whether participants fill their own histograms or share a single one
+     * @param concurrent true if other threads write or read the histogram during the render
+     * @return the shared histogram, or null if every participant fills its own one
+     */
+    static Histogram sharedHistogram(ChaosGame chaosGame, AccumulationMode mode, boolean concurrent) {
+        return mode == AccumulationMode.SHARED && concurrent
+            ? Histogram.createConcurrent(chaosGame.width(), chaosGame.height())
+            : null;
+    }
+
+    /**
+     * Starts a render on the given pool, notifying the listener about its progress.
+     *
+     * @param pool            the pool running the helper threads
+     * @param chaosGame       the flame to render
+     * @param num             the number of points to generate
+     * @param numThreads      the number of threads working on the render, including the joining one
+     * @param shared          the thread-safe histogram all participants accumulate into,
+     *                        or null if every participant fills its own one
+     * @param seed            the seed of the render
+     * @param listener        the listener of the render
+     * @param milestonePoints the number of points between two milestone notifications,
+     *                        rounded down to whole batches
+     * @param firstBatch      the number of leading batches already accumulated elsewhere, which are skipped
+     * @return the handle of the started render
+     */
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    static RenderHandle start(
+        ForkJoinPool pool,
+        ChaosGame chaosGame,
+        int num,
+        int numThreads,
+        Histogram shared,
+        long seed,
+        RenderListener listener,
+        int milestonePoints,
+        int firstBatch
+    ) {
+        int helperCount = Math.max(0, numThreads - 1);
+        RenderHandle handle =
+            new RenderHandle(pool, chaosGame, num, helperCount, shared, seed, listener, milestonePoints, firstBatch);
+        for (int helper = 0; helper < helperCount; helper++) {
+            pool.execute(handle::help);
+        }
+        return handle;
+    }
+
+    /**
+     * Stops handing out batches. Batches already in progress are finished,
+     * and a following {@link #join()} returns the partial result.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the render was cancelled.
+     *
+     * @return true if {@link #cancel()} was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks whether no batch is left to start, because all were taken or the render was stopped.
+     *
+     * @return true if the render will not start any new batch
+     */
+    public boolean isDone() {
+        return stopped() || nextBatch.get() >= batches;
+    }
+
+    /**
+     * Returns the share of the batches that are completed.
+     *
+     * @return the progress between 0 and 1
+     */
+    public double progress() {
+        return batches == 0 ? 1.0 : (double) completedBatches() / batches;
+    }
+
+    /**
+     * Returns the number of completed batches, including the skipped leading ones.
+     * Once the render is joined, the completed batches are exactly the first ones,
+     * because every batch that was handed out is finished before the join returns.
+     *
+     * @return the number of completed batches
+     */
+    public int completedBatches() {
+        return firstBatch + completedBatches.get();
+    }
+
+    /**
+     * Returns the number of points in the completed batches, including the skipped leading ones.
+     * Once the render is joined, these are exactly the points accumulated into its histogram.
+     *
+     * @return the number of completed points
+     */
+    public int completedPoints() {
+        return (int) Math.min(num, (long) completedBatches() * batchSize);
+    }
+
+    /**
+     * Returns the seed the batches of the render draw their random numbers from.
+     *
+     * @return the seed of the render
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of batches the points of the render are cut into.
+     *
+     * @return the number of batches
+     */
+    public int batches() {
+        return batches;
+    }
+
+    /**
+     * Returns the histogram all participants accumulate into while the render runs.
+     * Reading it does not stop the render, so the counts of a cell may already include
+     * points whose colors are not added yet; such a snapshot is only fit for previews.
+     *
+     * @return the shared histogram, or null if the participants fill their own histograms
+     */
+    public Histogram live() {
+        return shared;
+    }
+
+    /**
+     * Waits until the render completes or the deadline passes, whichever comes first,
+     * and returns everything accumulated until then.
+     *
+     * @param deadline the moment after which no new batch is started
+     * @return the accumulated histogram, complete or partial
+     */
+    public Histogram awaitUntil(Instant deadline) {
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        this.deadline = System.nanoTime() + Math.max(0, remaining.toNanos());
+        this.hasDeadline = true;
+        return join();
+    }
+
+    /**
+     * Takes part in the render until no batch is left, waits for the other participants
+     * and returns the accumulated histogram. If the calling thread is interrupted,
+     * the render is cancelled within one batch and the partial result is returned with the interrupt status set.
+     * Joining again returns the same histogram, or throws the same exception if a participant failed.
+     *
+     * @return the accumulated histogram, complete or partial
+     */
+    public synchronized Histogram join() {
+        if (failure != null) {
+            throw failure;
+        }
+        if (result != null) {
+            return result;
+        }
+        Histogram histogram = shared == null
+            ? Histogram.create(chaosGame.width(), chaosGame.height())
+            : shared;
+        for (int batch = claimUninterrupted(); batch >= 0; batch = claimUninterrupted()) {
+            process(batch, histogram);
+        }
+
+        // helpers that have not started yet have nothing left to do, the started ones are waited for
+        int remaining = helperCount - unstartedHelpers.getAndSet(0);
+        boolean interrupted = Thread.currentThread().isInterrupted();
+        RuntimeException helperFailure = null;
+        while (remaining > 0) {
+            try {
+                HelperResult helper = helperResults.take();
+                remaining--;
+                if (!helper.completed()) {
+                    cancel();
+                    helperFailure = new RuntimeException("Some threads failed to complete", helper.failure());
+                } else if (helper.histogram() != null && helper.histogram() != histogram) {
+                    pool.invoke(new HistogramMergeTask(histogram, helper.histogram()));
+                }
+            } catch (InterruptedException e) {
+                // the remaining batches are short, collect them and report the interrupt afterwards
+                cancel();
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (helperFailure != null) {
+            failure = helperFailure;
+            listener.onFailure(helperFailure);
+            throw helperFailure;
+        }
+        result = histogram;
+        listener.onComplete(this, histogram);
+        return histogram;
+    }
+
+    /**
+     * Runs a helper on a pool thread, unless the render was joined before the helper started,
+     * and hands its histogram or its failure over to the joining thread.
+     */
+    private void help() {
+        if (unstartedHelpers.getAndUpdate(count -> Math.max(0, count - 1)) == 0) {
+            return;
+        }
+        HelperResult result = HelperResult.ABORTED;
+        try {
+            result = new HelperResult(participate(), null, true);
+        } catch (RuntimeException e) {
+            result = new HelperResult(null, e, false);
+        } finally {
+            helperResults.add(result);
+        }
+    }
+
+    /**
+     * Processes batches on a pool thread until none are left.
+     *
+     * @return the histogram of the participant, or null if it got no batch
+     */
+    private Histogram participate() {
+        int batch = claim();
+        if (batch < 0) {
+            return null;
+        }
+        Histogram histogram = shared == null ? Histogram.create(chaosGame.width(), chaosGame.height()) : shared;
+        process(batch, histogram);
+        participate(histogram);
+        return histogram;
+    }
+
+    private void participate(Histogram histogram) {
+        for (int batch = claim(); batch >= 0; batch = claim()) {
+            process(batch, histogram);
+        }
+    }
+
+    private int claim() {
+        if (stopped()) {
+            return -1;
+        }
+        int batch = nextBatch.getAndIncrement();
+        return batch < batches ? batch : -1;
+    }
+
+    /**
+     * Claims the next batch for the joining thread, cancelling the render first if that thread was interrupted.
+     * The check comes before the claim, so every claimed batch is still processed.
+     *
+     * @return the batch, or -1 if none is left
+     */
+    private int claimUninterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            cancel();
+        }
+        return claim();
+    }
+
+    private boolean stopped() {
+        return cancelled || hasDeadline && System.nanoTime() - deadline >= 0;
+    }
+
+    private void process(int batch, Histogram histogram) {
+        int points = Math.min(batchSize, num - batch * batchSize);
+        chaosGame.play(points, RandomSource.create(seed, batch), histogram);
+        if (completedBatches.incrementAndGet() % milestoneBatches == 0) {
+            listener.onMilestone(this);
+        }
+    }
+
+    /**
+     * The outcome of a helper.
+     *
+     * @param histogram the histogram of the helper, or null if it got no batch
+     * @param failure   the exception the helper failed with, or null
+     * @param completed true if the helper returned normally
+     */
+    private record HelperResult(Histogram histogram, RuntimeException failure, boolean completed) {
+        private static final HelperResult ABORTED = new HelperResult(null, null, false);
+    }
+}
@@ -0,0 +1,33 @@
+package backend.academy.fractal.image;
+
+/**
+ * The RenderListener interface receives notifications about the progress of a render.
+ * Milestone notifications are delivered on the worker thread that completed the milestone batch,
+ * so implementations must return quickly and hand any heavy work over to another thread.
+ */
+public interface RenderListener {
+    /**
+     * Called every time the configured number of points has been processed.
+     *
+     * @param handle the handle of the render
+     */
+    default void onMilestone(RenderHandle handle) {
+    }
+
+    /**
+     * Called once when the render is joined, whether it completed or was stopped early.
+     *
+     * @param handle    the handle of the render
+     * @param histogram the accumulated histogram
+     */
+    default void onComplete(RenderHandle handle, Histogram histogram) {
+    }
+
+    /**
+     * Called once when a participant of the render failed.
+     *
+     * @param error the failure
+     */
+    default void onFailure(Throwable error) {
+    }
+}
@@ -0,0 +1,131 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.checkpoint.CheckpointedRender;
+import java.time.Duration;
+
+/**
+ * The RenderOptions record describes how {@link FractalGenerator} runs the chaos game of a render.
+ * Start from {@link #threads(int)} and add at most one way of running the render that is not the plain one:
+ * a time budget, supersampling, a target histogram, checkpoints or previews.
+ * Supersampling, a target histogram and previews always accumulate into a single shared histogram,
+ * so they ignore the accumulation mode.
+ *
+ * @param threads      the number of threads working on the render, including the calling one
+ * @param mode         whether workers fill their own histograms or share a single one
+ * @param timeBudget   the maximum duration of the chaos game, or null for no limit
+ * @param downsampler  the supersampling factor and the filter reducing the histogram, or null
+ * @param histogram    the thread-safe histogram of the size of the image receiving the hits, or null
+ * @param checkpoints  where and how often to save the progress, or null
+ * @param previews     the publisher of the previews, or null
+ * @param previewEvery the number of points between two previews
+ */
+public record RenderOptions(
+    int threads,
+    AccumulationMode mode,
+    Duration timeBudget,
+    Downsampler downsampler,
+    Histogram histogram,
+    CheckpointedRender checkpoints,
+    PreviewPublisher previews,
+    int previewEvery
+) {
+    /**
+     * Validates the options.
+     */
+    public RenderOptions {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("A render needs at least one thread");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("A render needs an accumulation mode");
+        }
+        int strategies = (timeBudget == null ? 0 : 1) + (downsampler == null ? 0 : 1) + (histogram == null ? 0 : 1)
+            + (checkpoints == null ? 0 : 1) + (previews == null ? 0 : 1);
+        if (strategies > 1) {
+            throw new IllegalArgumentException(
+                "A render takes at most one of a time budget, supersampling, a target histogram, checkpoints "
+                    + "and previews");
+        }
+        if (previews != null && previewEvery <= 0) {
+            throw new IllegalArgumentException("Previews need a positive number of points between them");
+        }
+    }
+
+    /**
+     * Creates the options of a plain render in which every thread fills its own histogram.
+     *
+     * @param threads the number of threads working on the render, including the calling one
+     * @return the options
+     */
+    public static RenderOptions threads(int threads) {
+        return new RenderOptions(threads, AccumulationMode.PER_THREAD, null, null, null, null, null, 0);
+    }
+
+    /**
+     * Returns these options with another accumulation mode.
+     *
+     * @param other whether workers fill their own histograms or share a single one
+     * @return the new options
+     */
+    public RenderOptions withMode(AccumulationMode other) {
+        return new RenderOptions(
+            threads, other, timeBudget, downsampler, histogram, checkpoints, previews, previewEvery);
+    }
+
+    /**
+     * Returns these options with a time budget. When the time is up,
+     * no new batch is started and the points accumulated so far are the result.
+     *
+     * @param budget the maximum duration of the chaos game
+     * @return the new options
+     */
+    public RenderOptions withTimeBudget(Duration budget) {
+        return new RenderOptions(threads, mode, budget, downsampler, histogram, checkpoints, previews, previewEvery);
+    }
+
+    /**
+     * Returns these options supersampled: the hits are accumulated into a compact shared histogram
+     * at factor times the image size and reduced to the image size by the downsampler.
+     *
+     * @param filter the supersampling factor and the filter reducing the histogram
+     * @return the new options
+     */
+    public RenderOptions withDownsampler(Downsampler filter) {
+        return new RenderOptions(threads, mode, timeBudget, filter, histogram, checkpoints, previews, previewEvery);
+    }
+
+    /**
+     * Returns these options accumulating straight into the given thread-safe histogram.
+     * Combined with an off-heap or memory-mapped {@link SegmentHistogram}, this renders
+     * resolutions whose histogram does not fit into the heap.
+     *
+     * @param target the histogram receiving the hits, of the size of the image
+     * @return the new options
+     */
+    public RenderOptions withHistogram(Histogram target) {
+        return new RenderOptions(threads, mode, timeBudget, downsampler, target, checkpoints, previews, previewEvery);
+    }
+
+    /**
+     * Returns these options periodically saving the progress, so that a crashed render can be resumed.
+     *
+     * @param render where and how often to save the progress
+     * @return the new options
+     */
+    public RenderOptions withCheckpoints(CheckpointedRender render) {
+        return new RenderOptions(threads, mode, timeBudget, downsampler, histogram, render, previews, previewEvery);
+    }
+
+    /**
+     * Returns these options publishing previews of the render as it refines.
+     * The workers accumulate into a single shared histogram, which is tone-mapped on another thread
+     * every time previewEvery more points are processed.
+     *
+     * @param publisher the publisher of the previews
+     * @param every     the number of points between two previews
+     * @return the new options
+     */
+    public RenderOptions withPreviews(PreviewPublisher publisher, int every) {
+        return new RenderOptions(threads, mode, timeBudget, downsampler, histogram, checkpoints, publisher, every);
+    }
+}
@@ -0,0 +1,13 @@
+package backend.academy.fractal.image;
+
+/**
+ * The RenderResult record is the outcome of a render: the accumulated histogram together with
+ * the seed and the number of points behind it, which a saved histogram records
+ * so that merging renders never counts the same points twice.
+ *
+ * @param histogram the accumulated histogram, complete or partial
+ * @param seed      the seed the points of the render were drawn with
+ * @param points    the number of points accumulated, fewer than asked for if the render stopped early
+ */
+public record RenderResult(Histogram histogram, long seed, long points) {
+}
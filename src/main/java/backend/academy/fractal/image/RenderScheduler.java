@@ -0,0 +1,165 @@
+package backend.academy.fractal.image;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The RenderScheduler class distributes the points of a render over a long-lived work-stealing pool.
+ * The points are cut into small batches handed out from a shared counter, and the thread joining
+ * the render takes batches as well, so all participants finish within one batch of each other.
+ * Every batch draws from its own random stream derived from the render seed and the batch index,
+ * which makes a seeded render independent of the number of threads and of the scheduling order.
+ */
+public final class RenderScheduler implements AutoCloseable {
+    private static final RenderScheduler SHARED = new RenderScheduler(Runtime.getRuntime().availableProcessors());
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a RenderScheduler with its own pool.
+     *
+     * @param parallelism the number of pool threads
+     */
+    public RenderScheduler(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Returns the scheduler shared by all renders of the application, sized to the number of processors.
+     *
+     * @return the shared scheduler
+     */
+    public static RenderScheduler shared() {
+        return SHARED;
+    }
+
+    /**
+     * Starts a render in the background and returns its handle.
+     * The pool works with numThreads - 1 threads, the thread that joins the handle is the last one.
+     *
+     * @param chaosGame  the flame to render
+     * @param num        the number of points to generate
+     * @param numThreads the number of threads working on the render, including the joining one
+     * @param mode       whether participants fill their own histograms or share a single one
+     * @param seed       the seed of the render
+     * @return the handle of the started render
+     */
+    public RenderHandle start(ChaosGame chaosGame, int num, int numThreads, AccumulationMode mode, long seed) {
+        return RenderHandle.start(pool, chaosGame, num, numThreads, mode, seed);
+    }
+
+    /**
+     * Starts a render in the background, notifying the listener about its progress.
+     *
+     * @param chaosGame       the flame to render
+     * @param num             the number of points to generate
+     * @param numThreads      the number of threads working on the render, including the joining one
+     * @param mode            whether participants fill their own histograms or share a single one
+     * @param seed            the seed of the render
+     * @param listener        the listener of the render
+     * @param milestonePoints the number of points between two milestone notifications
+     * @return the handle of the started render
+     */
+    public RenderHandle start(
+        ChaosGame chaosGame,
+        int num,
+        int numThreads,
+        AccumulationMode mode,
+        long seed,
+        RenderListener listener,
+        int milestonePoints
+    ) {
+        // a listener may read the shared histogram while it grows, so it is shared even with a single thread
+        Histogram shared = RenderHandle.sharedHistogram(chaosGame, mode, true);
+        return RenderHandle.start(pool, chaosGame, num, numThreads, shared, seed, listener, milestonePoints, 0);
+    }
+
+    /**
+     * Starts the rest of a render whose first batches were already accumulated, for example before a restart.
+     * Every batch keeps its own random stream, so the skipped batches and the started ones together
+     * accumulate the same points as an uninterrupted render.
+     *
+     * @param chaosGame  the flame to render
+     * @param num        the number of points of the whole render
+     * @param numThreads the number of threads working on the render, including the joining one
+     * @param mode       whether participants fill their own histograms or share a single one
+     * @param seed       the seed of the render
+     * @param firstBatch the number of leading batches to skip
+     * @return the handle of the started render
+     */
+    public RenderHandle resume(
+        ChaosGame chaosGame,
+        int num,
+        int numThreads,
+        AccumulationMode mode,
+        long seed,
+        int firstBatch
+    ) {
+        Histogram shared = RenderHandle.sharedHistogram(chaosGame, mode, numThreads > 1);
+        return RenderHandle.start(
+            pool, chaosGame, num, numThreads, shared, seed, RenderHandle.NO_LISTENER, Integer.MAX_VALUE, firstBatch);
+    }
+
+    /**
+     * Starts a render in the background that accumulates into the given histogram.
+     * All participants add their hits straight to it, so it must be thread-safe, and the render
+     * needs no memory besides it; this lets off-heap and memory-mapped histograms hold renders
+     * that do not fit into the heap.
+     *
+     * @param chaosGame  the flame to render
+     * @param num        the number of points to generate
+     * @param numThreads the number of threads working on the render, including the joining one
+     * @param seed       the seed of the render
+     * @param target     the thread-safe histogram receiving the hits
+     * @return the handle of the started render
+     */
+    public RenderHandle start(ChaosGame chaosGame, int num, int numThreads, long seed, Histogram target) {
+        if (target.width() != chaosGame.width() || target.height() != chaosGame.height()) {
+            throw new IllegalArgumentException("The histogram must have the size of the flame");
+        }
+        return RenderHandle.start(
+            pool, chaosGame, num, numThreads, target, seed, RenderHandle.NO_LISTENER, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Runs the chaos game for the given number of points and returns the accumulated histogram.
+     * The calling thread participates in the render and returns when all points are processed.
+     *
+     * @param chaosGame  the flame to render
+     * @param num        the number of points to generate
+     * @param numThreads the number of threads working on the render, including the calling one
+     * @param mode       whether participants fill their own histograms or share a single one
+     * @param seed       the seed of the render
+     * @return the accumulated histogram
+     */
+    public Histogram render(ChaosGame chaosGame, int num, int numThreads, AccumulationMode mode, long seed) {
+        return start(chaosGame, num, numThreads, mode, seed).join();
+    }
+
+    /**
+     * Merges a histogram into another one in parallel row bands on the pool.
+     *
+     * @param mainHistogram   the histogram receiving the hits
+     * @param threadHistogram the histogram whose hits are added
+     */
+    public void merge(Histogram mainHistogram, Histogram threadHistogram) {
+        pool.invoke(new HistogramMergeTask(mainHistogram, threadHistogram));
+    }
+
+    /**
+     * Returns the pool of this scheduler for other work that should share its threads with the renders,
+     * such as compressing the finished image.
+     *
+     * @return the executor of the pool
+     */
+    public Executor executor() {
+        return pool;
+    }
+
+    /**
+     * Shuts the pool of this scheduler down.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,18 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.random.RandomSource;
+
+/**
+ * The ScalarChaosKernel class advances one walker at a time with {@link ChaosGame#playScalar}.
+ */
+final class ScalarChaosKernel implements ChaosKernel {
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void play(ChaosGame game, int num, RandomSource random, Histogram histogram) {
+        game.playScalar(num, random, histogram);
+    }
+}
@@ -0,0 +1,173 @@
+package backend.academy.fractal.image;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The SegmentHistogram class is an off-heap Histogram that can be shared by all worker threads.
+ * Hit counts and color sums live in one native memory segment in struct-of-arrays layout,
+ * either allocated outside the Java heap or mapped from a scratch file, so the size of a render
+ * is bounded by the native memory or the disk rather than by the maximum heap size.
+ * Every update is a lock-free atomic add, like in {@link ConcurrentHistogram}.
+ * The memory is released when the histogram is closed.
+ */
+public final class SegmentHistogram implements Histogram, AutoCloseable {
+    private static final VarHandle INTS = ValueLayout.JAVA_INT.arrayElementVarHandle();
+    private static final VarHandle LONGS = ValueLayout.JAVA_LONG.arrayElementVarHandle();
+    private static final long BYTES_PER_CELL = Integer.BYTES + 3L * Long.BYTES;
+    private final int width;
+    private final int height;
+    private final Arena arena;
+    private final Path file;
+    private final MemorySegment hits;
+    private final MemorySegment red;
+    private final MemorySegment green;
+    private final MemorySegment blue;
+
+    private SegmentHistogram(int width, int height, Arena arena, MemorySegment memory, Path file) {
+        this.width = width;
+        this.height = height;
+        this.arena = arena;
+        this.file = file;
+        long size = Math.multiplyExact(width, height);
+        // the int counters go first, padded so that the long sums stay 8-byte aligned
+        long countersBytes = (size * Integer.BYTES + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+        long sumBytes = size * Long.BYTES;
+        this.hits = memory.asSlice(0, size * Integer.BYTES);
+        this.red = memory.asSlice(countersBytes, sumBytes);
+        this.green = memory.asSlice(countersBytes + sumBytes, sumBytes);
+        this.blue = memory.asSlice(countersBytes + 2 * sumBytes, sumBytes);
+    }
+
+    /**
+     * Allocates an empty histogram in native memory outside the Java heap.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     * @return the new histogram
+     */
+    public static SegmentHistogram allocate(int width, int height) {
+        Arena arena = Arena.ofShared();
+        return new SegmentHistogram(width, height, arena, arena.allocate(byteSize(width, height), Long.BYTES), null);
+    }
+
+    /**
+     * Creates an empty histogram backed by a memory-mapped scratch file.
+     * An existing file is overwritten, and the file is deleted when the histogram is closed.
+     * The file is sparse where the file system supports it, so untouched cells take no disk space.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     * @param file   the scratch file
+     * @return the new histogram
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static SegmentHistogram map(int width, int height, Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.SPARSE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        )) {
+            MemorySegment memory = channel.map(FileChannel.MapMode.READ_WRITE, 0, byteSize(width, height), arena);
+            return new SegmentHistogram(width, height, arena, memory, file);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Computes the number of bytes a histogram of the given size occupies.
+     *
+     * @param width  the width of the histogram
+     * @param height the height of the histogram
+     * @return the size of the histogram in bytes
+     */
+    public static long byteSize(int width, int height) {
+        return Math.multiplyExact(width, height) * BYTES_PER_CELL + Long.BYTES;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void add(int index, int r, int g, int b) {
+        INTS.getAndAdd(hits, 0L, (long) index, 1);
+        LONGS.getAndAdd(red, 0L, (long) index, (long) r);
+        LONGS.getAndAdd(green, 0L, (long) index, (long) g);
+        LONGS.getAndAdd(blue, 0L, (long) index, (long) b);
+    }
+
+    @Override
+    public void add(int index, int count, long r, long g, long b) {
+        INTS.getAndAdd(hits, 0L, (long) index, count);
+        LONGS.getAndAdd(red, 0L, (long) index, r);
+        LONGS.getAndAdd(green, 0L, (long) index, g);
+        LONGS.getAndAdd(blue, 0L, (long) index, b);
+    }
+
+    @Override
+    public int hitCount(int index) {
+        return (int) INTS.getOpaque(hits, 0L, (long) index);
+    }
+
+    @Override
+    public long redSum(int index) {
+        return (long) LONGS.getOpaque(red, 0L, (long) index);
+    }
+
+    @Override
+    public long greenSum(int index) {
+        return (long) LONGS.getOpaque(green, 0L, (long) index);
+    }
+
+    @Override
+    public long blueSum(int index) {
+        return (long) LONGS.getOpaque(blue, 0L, (long) index);
+    }
+
+    @Override
+    public void merge(Histogram other, int from, int to) {
+        if (other.width() != width || other.height() != height) {
+            throw new IllegalArgumentException("Histograms must have the same size");
+        }
+        for (int i = from; i < to; i++) {
+            int otherHits = other.hitCount(i);
+            if (otherHits != 0) {
+                add(i, otherHits, other.redSum(i), other.greenSum(i), other.blueSum(i));
+            }
+        }
+    }
+
+    /**
+     * Releases the memory of the histogram and deletes its scratch file, if it has one.
+     * The histogram must not be used afterwards.
+     *
+     * @throws IOException if the scratch file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        arena.close();
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
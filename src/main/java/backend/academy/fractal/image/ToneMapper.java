@@ -0,0 +1,219 @@
+package backend.academy.fractal.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * The ToneMapper class turns an accumulated histogram into displayable colors.
+ * The color of every cell is the average of the colors that landed in it,
+ * scaled by the gamma-corrected logarithm of its density relative to the white density,
+ * which is the density of the densest cell unless it is fixed, and multiplied by the brightness.
+ * Both the search of the densest cell and the mapping run over row bands in parallel
+ * and write packed RGB integers straight into the destination buffer.
+ */
+public final class ToneMapper {
+    private static final int ROWS_PER_BAND = 16;
+    private static final int ROWS_PER_STREAMED_BAND = 64;
+    private static final int MAX_CHANNEL = 255;
+    private final double inverseGamma;
+    private final double brightness;
+    private final double whiteDensity;
+
+    /**
+     * Constructs a ToneMapper normalizing to the densest cell at the natural brightness.
+     *
+     * @param gamma the gamma correction coefficient
+     */
+    public ToneMapper(double gamma) {
+        this(gamma, 1.0, 0.0);
+    }
+
+    /**
+     * Constructs a ToneMapper.
+     *
+     * @param gamma        the gamma correction coefficient
+     * @param brightness   the factor of every color, clipped to the channel range above 1
+     * @param whiteDensity the density mapped to full brightness, denser cells are clipped to it;
+     *                     0 normalizes to the densest cell of every histogram
+     */
+    public ToneMapper(double gamma, double brightness, double whiteDensity) {
+        if (gamma <= 0 || brightness <= 0 || whiteDensity < 0) {
+            throw new IllegalArgumentException("Gamma and brightness must be positive, the white density not negative");
+        }
+        this.inverseGamma = 1.0 / gamma;
+        this.brightness = brightness;
+        this.whiteDensity = whiteDensity;
+    }
+
+    /**
+     * Tone-maps the histogram into a new image.
+     *
+     * @param histogram the accumulated histogram
+     * @return a TYPE_INT_RGB image of the same size as the histogram
+     */
+    public BufferedImage toImage(Histogram histogram) {
+        BufferedImage image = new BufferedImage(histogram.width(), histogram.height(), BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        map(histogram, pixels);
+        return image;
+    }
+
+    /**
+     * Tone-maps the histogram into a buffer of packed RGB integers in row-major order.
+     *
+     * @param histogram the accumulated histogram
+     * @param pixels    the destination buffer, at least as long as the histogram
+     */
+    public void map(Histogram histogram, int[] pixels) {
+        double logMax = logMax(histogram);
+        if (logMax == 0) {
+            Arrays.fill(pixels, 0, histogram.size(), 0);
+            return;
+        }
+        IntStream.range(0, bands(histogram)).parallel().forEach(band -> mapRows(
+            histogram, pixels, band * ROWS_PER_BAND, Math.min(histogram.height(), (band + 1) * ROWS_PER_BAND), logMax
+        ));
+    }
+
+    /**
+     * Tone-maps the histogram into a PNG writer band by band, without materializing the whole image.
+     * The next band is tone-mapped on the executor while the current one is compressed,
+     * so at most two bands of pixels exist at a time.
+     *
+     * @param histogram the accumulated histogram
+     * @param writer    the writer of an image of the size of the histogram
+     * @param executor  the executor tone-mapping the bands, usually the one of the writer
+     * @throws IOException if the image cannot be written
+     */
+    public void write(Histogram histogram, PngWriter writer, Executor executor) throws IOException {
+        double logMax = logMax(histogram);
+        int rows = Math.min(ROWS_PER_STREAMED_BAND, histogram.height());
+        int[] current = new int[rows * histogram.width()];
+        int[] next = new int[rows * histogram.width()];
+        CompletableFuture<Void> mapped = mapBandAsync(histogram, current, 0, rows, logMax, executor);
+        for (int fromRow = 0; fromRow < histogram.height(); fromRow += rows) {
+            int count = Math.min(rows, histogram.height() - fromRow);
+            mapped.join();
+            if (fromRow + rows < histogram.height()) {
+                int nextRow = fromRow + rows;
+                int toRow = Math.min(histogram.height(), nextRow + rows);
+                mapped = mapBandAsync(histogram, next, nextRow, toRow, logMax, executor);
+            }
+            writer.writeRows(current, count);
+            int[] written = current;
+            current = next;
+            next = written;
+        }
+    }
+
+    /**
+     * Finds the logarithm of the density mapped to full brightness: the fixed white density if there is one,
+     * or else the highest density in the histogram.
+     *
+     * @param histogram the accumulated histogram
+     * @return the decimal logarithm of the white density, or 0 if it is at most one
+     */
+    public double logMax(Histogram histogram) {
+        if (whiteDensity > 0) {
+            return whiteDensity <= 1 ? 0.0 : Math.log10(whiteDensity);
+        }
+        double maxDensity = IntStream.range(0, bands(histogram)).parallel()
+            .mapToDouble(band -> maxDensity(histogram, band))
+            .max()
+            .orElse(0);
+        return maxDensity <= 1 ? 0.0 : Math.log10(maxDensity);
+    }
+
+    /**
+     * Tone-maps a range of rows into a buffer of packed RGB integers.
+     *
+     * @param histogram the accumulated histogram
+     * @param pixels    the destination buffer indexed like the histogram
+     * @param fromRow   the first row to map, inclusive
+     * @param toRow     the last row to map, exclusive
+     * @param logMax    the logarithm of the highest density, see {@link #logMax(Histogram)}
+     */
+    public void mapRows(Histogram histogram, int[] pixels, int fromRow, int toRow, double logMax) {
+        int to = toRow * histogram.width();
+        for (int index = fromRow * histogram.width(); index < to; index++) {
+            pixels[index] = color(histogram, index, logMax);
+        }
+    }
+
+    /**
+     * Computes the tone-mapped color of a single cell.
+     *
+     * @param histogram the accumulated histogram
+     * @param index     the flat index of the cell
+     * @param logMax    the logarithm of the highest density
+     * @return the packed RGB color of the cell
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public int color(Histogram histogram, int index, double logMax) {
+        double density = histogram.density(index);
+        // a density of one or less has a non-positive logarithm and stays black
+        if (density <= 1 || logMax == 0) {
+            return 0;
+        }
+        int hits = histogram.hitCount(index);
+        double factor = brightness * Math.pow(Math.min(1.0, Math.log10(density) / logMax), inverseGamma) / hits;
+        int red = (int) Math.min(MAX_CHANNEL, histogram.redSum(index) * factor);
+        int green = (int) Math.min(MAX_CHANNEL, histogram.greenSum(index) * factor);
+        int blue = (int) Math.min(MAX_CHANNEL, histogram.blueSum(index) * factor);
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * Starts tone-mapping a range of rows into a buffer holding only those rows,
+     * split into bands of {@value #ROWS_PER_BAND} rows mapped in parallel on the executor.
+     *
+     * @param histogram the accumulated histogram
+     * @param band      the destination buffer, indexed from the first row of the range
+     * @param fromRow   the first row to map, inclusive
+     * @param toRow     the last row to map, exclusive
+     * @param logMax    the logarithm of the highest density
+     * @param executor  the executor mapping the rows
+     * @return the future completed when the band is mapped
+     */
+    private CompletableFuture<Void> mapBandAsync(
+        Histogram histogram,
+        int[] band,
+        int fromRow,
+        int toRow,
+        double logMax,
+        Executor executor
+    ) {
+        int width = histogram.width();
+        int first = fromRow * width;
+        CompletableFuture<?>[] parts = new CompletableFuture<?>[(toRow - fromRow + ROWS_PER_BAND - 1) / ROWS_PER_BAND];
+        for (int part = 0; part < parts.length; part++) {
+            int from = (fromRow + part * ROWS_PER_BAND) * width;
+            int to = Math.min(toRow, fromRow + (part + 1) * ROWS_PER_BAND) * width;
+            parts[part] = CompletableFuture.runAsync(() -> {
+                for (int index = from; index < to; index++) {
+                    band[index - first] = color(histogram, index, logMax);
+                }
+            }, executor);
+        }
+        return CompletableFuture.allOf(parts);
+    }
+
+    private static int bands(Histogram histogram) {
+        return (histogram.height() + ROWS_PER_BAND - 1) / ROWS_PER_BAND;
+    }
+
+    private static double maxDensity(Histogram histogram, int band) {
+        int from = band * ROWS_PER_BAND * histogram.width();
+        int to = Math.min(histogram.height(), (band + 1) * ROWS_PER_BAND) * histogram.width();
+        double max = 0;
+        for (int index = from; index < to; index++) {
+            max = Math.max(max, histogram.density(index));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,117 @@
+package backend.academy.fractal.random;
+
+/**
+ * The AliasTable class samples an index with probability proportional to its weight in constant time,
+ * with the alias method in the numerically stable form of Vose.
+ * Every column of the table holds the probability of keeping its own index and the index it otherwise
+ * stands in for, so a sample takes one random number, split into the column and the coin, and one lookup.
+ * A table of equal weights draws plain uniform indices instead, the same numbers as
+ * {@link RandomSource#nextInts(int[], int)}, so unweighted renders are not changed by it.
+ * Instances are immutable and can be shared by all worker threads of a render.
+ */
+public final class AliasTable {
+    private static final int HALF_BITS = 32;
+    private static final long LOW_HALF = 0xFFFFFFFFL;
+    private static final double COIN_SCALE = 0x1.0p-32;
+    private final double[] probability;
+    private final int[] alias;
+    private final boolean uniform;
+
+    /**
+     * Builds the table of the given weights.
+     *
+     * @param weights the weights of the indices, positive and finite
+     */
+    public AliasTable(double[] weights) {
+        int size = weights.length;
+        if (size == 0) {
+            throw new IllegalArgumentException("An alias table needs at least one weight");
+        }
+        double sum = 0;
+        boolean equal = true;
+        for (double weight : weights) {
+            if (!(weight > 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Weights must be positive and finite: " + weight);
+            }
+            sum += weight;
+            equal &= weight == weights[0];
+        }
+        this.uniform = equal;
+        this.probability = new double[size];
+        this.alias = new int[size];
+
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / sum;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // whatever is left is 1 up to rounding and keeps its own index
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1;
+        }
+    }
+
+    /**
+     * Returns the number of indices of the table.
+     *
+     * @return the number of weights
+     */
+    public int size() {
+        return probability.length;
+    }
+
+    /**
+     * Draws an index with probability proportional to its weight.
+     * The high half of one random long picks the column and the low half tosses its coin.
+     *
+     * @param random the random source owned by the current thread
+     * @return the index
+     */
+    public int sample(RandomSource random) {
+        if (uniform) {
+            return random.nextInt(probability.length);
+        }
+        long bits = random.nextLong();
+        int column = (int) (((bits >>> HALF_BITS) * probability.length) >>> HALF_BITS);
+        return (bits & LOW_HALF) * COIN_SCALE < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Fills the array with indices drawn with probabilities proportional to their weights.
+     *
+     * @param random      the random source owned by the current thread
+     * @param destination the array to fill
+     */
+    public void sample(RandomSource random, int[] destination) {
+        if (uniform) {
+            random.nextInts(destination, probability.length);
+            return;
+        }
+        for (int i = 0; i < destination.length; i++) {
+            destination[i] = sample(random);
+        }
+    }
+}
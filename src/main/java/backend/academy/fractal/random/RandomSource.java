@@ -0,0 +1,107 @@
+package backend.academy.fractal.random;
+
+/**
+ * The RandomSource interface is the source of randomness of the chaos game.
+ * Instances are not thread-safe: every worker thread gets its own independent stream
+ * obtained with {@link #split()}, so the hot loop never shares or locks a generator.
+ */
+public interface RandomSource {
+    /**
+     * The algorithm used by the default random sources.
+     */
+    String DEFAULT_ALGORITHM = "L64X128MixRandom";
+
+    /**
+     * The odd constant used to spread the seeds of consecutive streams (the golden ratio in 64-bit fixed point).
+     */
+    long STREAM_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Creates a random source seeded from the system entropy.
+     *
+     * @return a new unseeded random source
+     */
+    static RandomSource create() {
+        return new SplittableRandomSource(DEFAULT_ALGORITHM);
+    }
+
+    /**
+     * Creates a random source with a fixed seed, which makes renders reproducible.
+     *
+     * @param seed the seed of the generator
+     * @return a new seeded random source
+     */
+    static RandomSource create(long seed) {
+        return new SplittableRandomSource(DEFAULT_ALGORITHM, seed);
+    }
+
+    /**
+     * Creates the random source of one stream of a family sharing the same seed.
+     * The stream is fully determined by the seed and its index, which lets units of work
+     * be processed by any thread in any order without changing the result.
+     *
+     * @param seed   the seed of the family
+     * @param stream the index of the stream
+     * @return a new seeded random source
+     */
+    static RandomSource create(long seed, long stream) {
+        return create(seed + stream * STREAM_INCREMENT);
+    }
+
+    /**
+     * Returns a uniformly distributed long value.
+     *
+     * @return the random long
+     */
+    long nextLong();
+
+    /**
+     * Returns a uniformly distributed integer between 0 (inclusive) and bound (exclusive).
+     *
+     * @param bound the upper bound, must be positive
+     * @return the random integer
+     */
+    int nextInt(int bound);
+
+    /**
+     * Returns a uniformly distributed double between origin (inclusive) and bound (exclusive).
+     *
+     * @param origin the lower bound
+     * @param bound  the upper bound
+     * @return the random double
+     */
+    double nextDouble(double origin, double bound);
+
+    /**
+     * Creates a new random source with a statistically independent stream.
+     * Splitting is deterministic, so a seeded source always yields the same children.
+     *
+     * @return the new random source
+     */
+    RandomSource split();
+
+    /**
+     * Fills the array with random integers between 0 (inclusive) and bound (exclusive).
+     *
+     * @param destination the array to fill
+     * @param bound       the upper bound, must be positive
+     */
+    default void nextInts(int[] destination, int bound) {
+        for (int i = 0; i < destination.length; i++) {
+            destination[i] = nextInt(bound);
+        }
+    }
+
+    /**
+     * Fills the array with random doubles between origin (inclusive) and bound (exclusive).
+     *
+     * @param destination the array to fill
+     * @param origin      the lower bound
+     * @param bound       the upper bound
+     */
+    default void nextDoubles(double[] destination, double origin, double bound) {
+        for (int i = 0; i < destination.length; i++) {
+            destination[i] = nextDouble(origin, bound);
+        }
+    }
+}
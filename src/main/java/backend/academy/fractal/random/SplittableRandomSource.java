@@ -0,0 +1,56 @@
+package backend.academy.fractal.random;
+
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * The SplittableRandomSource class is a RandomSource backed by one of the JDK splittable generators
+ * (for example L64X128MixRandom or SplittableRandom). These generators are fast, unsynchronized
+ * and can be split into independent streams for every worker thread.
+ */
+public final class SplittableRandomSource implements RandomSource {
+    private final RandomGenerator.SplittableGenerator generator;
+
+    /**
+     * Constructs a random source seeded from the system entropy.
+     *
+     * @param algorithm the name of a splittable JDK random generator algorithm
+     */
+    public SplittableRandomSource(String algorithm) {
+        this(RandomGenerator.SplittableGenerator.of(algorithm));
+    }
+
+    /**
+     * Constructs a random source with a fixed seed.
+     *
+     * @param algorithm the name of a splittable JDK random generator algorithm
+     * @param seed      the seed of the generator
+     */
+    public SplittableRandomSource(String algorithm, long seed) {
+        this(RandomGeneratorFactory.<RandomGenerator.SplittableGenerator>of(algorithm).create(seed));
+    }
+
+    private SplittableRandomSource(RandomGenerator.SplittableGenerator generator) {
+        this.generator = generator;
+    }
+
+    @Override
+    public long nextLong() {
+        return generator.nextLong();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return generator.nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble(double origin, double bound) {
+        return generator.nextDouble(origin, bound);
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplittableRandomSource(generator.split());
+    }
+}
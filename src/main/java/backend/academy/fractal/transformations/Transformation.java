@@ -3,14 +3,50 @@ package backend.academy.fractal.transformations;
 /**
  * The Transformation interface defines a method for transforming 2D coordinates.
  * Implementations of this interface will apply specific transformations to the given coordinates.
+ * The primary contract writes the result into a caller-owned buffer, so the chaos game loop
+ * can reuse a single array for every step instead of allocating a new one per call.
+ * The batch method transforms many points in place, so that a kernel advancing a block of walkers
+ * makes one call per block and every variation runs its own tight loop.
  */
 public interface Transformation {
+    /**
+     * Transforms the given coordinates and writes the result into the provided buffer.
+     *
+     * @param x   the x-coordinate
+     * @param y   the y-coordinate
+     * @param out the buffer receiving the transformed coordinates as [newX, newY]
+     */
+    void transform(double x, double y, double[] out);
+
     /**
      * Transforms the given coordinates.
+     * This is a convenience method that allocates a new array on every call.
      *
      * @param x the x-coordinate
      * @param y the y-coordinate
      * @return the transformed coordinates as an array [newX, newY]
      */
-    double[] transform(double x, double y);
+    default double[] transform(double x, double y) {
+        double[] out = new double[2];
+        transform(x, y, out);
+        return out;
+    }
+
+    /**
+     * Transforms the first n points of the given coordinate arrays in place.
+     * The built-in transformations override this with a loop over their own formula;
+     * this default calls {@link #transform(double, double, double[])} for every point.
+     *
+     * @param xs the x-coordinates, replaced by the transformed ones
+     * @param ys the y-coordinates, replaced by the transformed ones
+     * @param n  the number of points
+     */
+    default void transformBatch(double[] xs, double[] ys, int n) {
+        double[] out = new double[2];
+        for (int i = 0; i < n; i++) {
+            transform(xs[i], ys[i], out);
+            xs[i] = out[0];
+            ys[i] = out[1];
+        }
+    }
 }
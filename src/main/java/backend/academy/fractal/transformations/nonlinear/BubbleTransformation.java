@@ -7,22 +7,41 @@ import backend.academy.fractal.transformations.Transformation;
  * to the coordinates. It scales the coordinates based on their distance from the origin.
  */
 public class BubbleTransformation implements Transformation {
-    private static final double SCALE = 1.7;
-    private static final int BUBBLE_RADIUS = 4;
+    static final double SCALE = 1.7;
+    static final int BUBBLE_RADIUS = 4;
 
     /**
      * Transforms the given coordinates by applying a bubble effect.
      *
-     * @param x the x-coordinate
-     * @param y the y-coordinate
-     * @return the transformed coordinates as an array [bubbleX, bubbleY]
+     * @param x   the x-coordinate
+     * @param y   the y-coordinate
+     * @param out the buffer receiving the transformed coordinates as [bubbleX, bubbleY]
      */
     @Override
-    public double[] transform(double x, double y) {
+    public void transform(double x, double y, double[] out) {
         double rSquared = x * x + y * y;
         double factor = BUBBLE_RADIUS / (rSquared + BUBBLE_RADIUS);
         double bubbleX = SCALE * factor * x;
         double bubbleY = SCALE * factor * y;
-        return new double[] {bubbleX, bubbleY};
+        out[0] = bubbleX;
+        out[1] = bubbleY;
+    }
+
+    /**
+     * Transforms the first n points in place with the same formula as {@link #transform(double, double, double[])}.
+     *
+     * @param xs the x-coordinates, replaced by the transformed ones
+     * @param ys the y-coordinates, replaced by the transformed ones
+     * @param n  the number of points
+     */
+    @Override
+    public void transformBatch(double[] xs, double[] ys, int n) {
+        for (int i = 0; i < n; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            double factor = BUBBLE_RADIUS / (x * x + y * y + BUBBLE_RADIUS);
+            xs[i] = SCALE * factor * x;
+            ys[i] = SCALE * factor * y;
+        }
     }
 }
@@ -7,22 +7,39 @@ import backend.academy.fractal.transformations.Transformation;
  * to the coordinates. It scales the coordinates based on the exponential function.
  */
 public class ExponentialTransformation implements Transformation {
-    private static final double SCALE = 1.5;
+    static final double SCALE = 1.5;
 
     /**
      * Transforms the given coordinates by applying an exponential effect.
      *
-     * @param x the x-coordinate
-     * @param y the y-coordinate
-     * @return the transformed coordinates as an array [newY, newX]
+     * @param x   the x-coordinate
+     * @param y   the y-coordinate
+     * @param out the buffer receiving the transformed coordinates as [newY, newX]
      */
     @Override
-    public double[] transform(double x, double y) {
+    public void transform(double x, double y, double[] out) {
         double exp = Math.exp(x - 1);
 
         double newX = SCALE * exp * Math.cos(Math.PI * y);
         double newY = SCALE * exp * Math.sin(Math.PI * y);
-        return new double[] {newY, newX};
+        out[0] = newY;
+        out[1] = newX;
     }
 
+    /**
+     * Transforms the first n points in place with the same formula as {@link #transform(double, double, double[])}.
+     *
+     * @param xs the x-coordinates, replaced by the transformed ones
+     * @param ys the y-coordinates, replaced by the transformed ones
+     * @param n  the number of points
+     */
+    @Override
+    public void transformBatch(double[] xs, double[] ys, int n) {
+        for (int i = 0; i < n; i++) {
+            double exp = Math.exp(xs[i] - 1);
+            double angle = Math.PI * ys[i];
+            xs[i] = SCALE * exp * Math.sin(angle);
+            ys[i] = SCALE * exp * Math.cos(angle);
+        }
+    }
 }
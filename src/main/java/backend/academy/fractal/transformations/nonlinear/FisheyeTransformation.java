@@ -7,21 +7,40 @@ import backend.academy.fractal.transformations.Transformation;
  * to the coordinates. It scales the coordinates based on their distance from the origin.
  */
 public class FisheyeTransformation implements Transformation {
-    private static final double SCALE = 1;
+    static final double SCALE = 1;
 
     /**
      * Transforms the given coordinates by applying a fisheye effect.
      *
-     * @param x the x-coordinate
-     * @param y the y-coordinate
-     * @return the transformed coordinates as an array [newX, newY]
+     * @param x   the x-coordinate
+     * @param y   the y-coordinate
+     * @param out the buffer receiving the transformed coordinates as [newX, newY]
      */
     @Override
-    public double[] transform(double x, double y) {
+    public void transform(double x, double y, double[] out) {
         double r = Math.sqrt(x * x + y * y);
         double factor = 2 / (r + 1);
         double newX = SCALE * factor * y;
         double newY = SCALE * factor * x;
-        return new double[] {newX, newY};
+        out[0] = newX;
+        out[1] = newY;
+    }
+
+    /**
+     * Transforms the first n points in place with the same formula as {@link #transform(double, double, double[])}.
+     *
+     * @param xs the x-coordinates, replaced by the transformed ones
+     * @param ys the y-coordinates, replaced by the transformed ones
+     * @param n  the number of points
+     */
+    @Override
+    public void transformBatch(double[] xs, double[] ys, int n) {
+        for (int i = 0; i < n; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            double factor = 2 / (Math.sqrt(x * x + y * y) + 1);
+            xs[i] = SCALE * factor * y;
+            ys[i] = SCALE * factor * x;
+        }
     }
 }
@@ -7,19 +7,19 @@ import backend.academy.fractal.transformations.Transformation;
  * to the coordinates. It scales the coordinates based on their distance from the origin and an angular factor.
  */
 public class RaysTransformation implements Transformation {
-    private final static double SCALE = 0.5;
-    private final static double PSI = 1.5;
-    private final static double EPSILON = 1e-6;
+    static final double SCALE = 0.5;
+    static final double PSI = 1.5;
+    static final double EPSILON = 1e-6;
 
     /**
      * Transforms the given coordinates by applying a rays effect.
      *
-     * @param x the x-coordinate
-     * @param y the y-coordinate
-     * @return the transformed coordinates as an array [newX, newY]
+     * @param x   the x-coordinate
+     * @param y   the y-coordinate
+     * @param out the buffer receiving the transformed coordinates as [newX, newY]
      */
     @Override
-    public double[] transform(double x, double y) {
+    public void transform(double x, double y, double[] out) {
         double rSquared = x * x + y * y;
         if (rSquared == 0) {
             rSquared = EPSILON; // Prevent division by zero
@@ -31,6 +31,27 @@ public class RaysTransformation implements Transformation {
         double newX = SCALE * factor * Math.cos(x);
         double newY = SCALE * factor * Math.sin(y);
 
-        return new double[] {newX, newY};
+        out[0] = newX;
+        out[1] = newY;
+    }
+
+    /**
+     * Transforms the first n points in place with the same formula as {@link #transform(double, double, double[])}.
+     *
+     * @param xs the x-coordinates, replaced by the transformed ones
+     * @param ys the y-coordinates, replaced by the transformed ones
+     * @param n  the number of points
+     */
+    @Override
+    public void transformBatch(double[] xs, double[] ys, int n) {
+        for (int i = 0; i < n; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            double rSquared = x * x + y * y;
+            double v44 = Math.sqrt(rSquared);
+            double factor = (v44 * Math.tan(PSI * Math.PI * v44)) / (rSquared == 0 ? EPSILON : rSquared);
+            xs[i] = SCALE * factor * Math.cos(x);
+            ys[i] = SCALE * factor * Math.sin(y);
+        }
     }
 }
@@ -2,18 +2,53 @@ package backend.academy.fractal.units;
 
 /**
  * The AffineMatrix record represents an affine transformation matrix with additional color components.
- * It includes six double values for the transformation matrix and three integer values for the RGB color components.
+ * It includes six double values for the transformation matrix, three integer values for the RGB color components
+ * and the weight deciding how often the chaos game picks this matrix relative to the others.
  *
- * @param a     the 'a' component of the affine transformation matrix
- * @param b     the 'b' component of the affine transformation matrix
- * @param c     the 'c' component of the affine transformation matrix
- * @param d     the 'd' component of the affine transformation matrix
- * @param e     the 'e' component of the affine transformation matrix
- * @param f     the 'f' component of the affine transformation matrix
- * @param red   the red component of the color
- * @param green the green component of the color
- * @param blue  the blue component of the color
+ * @param a      the 'a' component of the affine transformation matrix
+ * @param b      the 'b' component of the affine transformation matrix
+ * @param c      the 'c' component of the affine transformation matrix
+ * @param d      the 'd' component of the affine transformation matrix
+ * @param e      the 'e' component of the affine transformation matrix
+ * @param f      the 'f' component of the affine transformation matrix
+ * @param red    the red component of the color
+ * @param green  the green component of the color
+ * @param blue   the blue component of the color
+ * @param weight the relative probability of the matrix, positive and finite
  */
 @SuppressWarnings("RecordComponentNumber")
-public record AffineMatrix(double a, double b, double c, double d, double e, double f, int red, int green, int blue) {
+public record AffineMatrix(
+    double a, double b, double c, double d, double e, double f, int red, int green, int blue, double weight
+) {
+    /**
+     * The weight of a matrix given without one.
+     */
+    public static final double DEFAULT_WEIGHT = 1;
+
+    /**
+     * Constructs an AffineMatrix, checking its weight.
+     */
+    public AffineMatrix {
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("The weight of an affine matrix must be positive and finite: " + weight);
+        }
+    }
+
+    /**
+     * Constructs an AffineMatrix with the default weight.
+     *
+     * @param a     the 'a' component of the affine transformation matrix
+     * @param b     the 'b' component of the affine transformation matrix
+     * @param c     the 'c' component of the affine transformation matrix
+     * @param d     the 'd' component of the affine transformation matrix
+     * @param e     the 'e' component of the affine transformation matrix
+     * @param f     the 'f' component of the affine transformation matrix
+     * @param red   the red component of the color
+     * @param green the green component of the color
+     * @param blue  the blue component of the color
+     */
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    public AffineMatrix(double a, double b, double c, double d, double e, double f, int red, int green, int blue) {
+        this(a, b, c, d, e, f, red, green, blue, DEFAULT_WEIGHT);
+    }
 }
@@ -0,0 +1,114 @@
+package backend.academy.fractal.units;
+
+import java.util.Locale;
+
+/**
+ * The Symmetry class represents a finite group of linear maps applied to every sampled point.
+ * The maps are precomputed once as a flat table of 2x2 matrices {@code [a, b, c, d]},
+ * so applying the symmetry costs four multiplications per map instead of trigonometric calls.
+ * Cyclic groups contain only rotations, dihedral groups add the mirror images.
+ */
+public final class Symmetry {
+    private static final int MATRIX_SIZE = 4;
+    private final double[] matrices;
+
+    private Symmetry(double[] matrices) {
+        this.matrices = matrices;
+    }
+
+    /**
+     * Creates the cyclic symmetry group of the given order: the rotations by multiples of 2pi/order.
+     *
+     * @param order the number of rotations, must be positive
+     * @return the rotational symmetry
+     */
+    public static Symmetry rotational(int order) {
+        checkOrder(order);
+        double[] matrices = new double[order * MATRIX_SIZE];
+        for (int s = 0; s < order; s++) {
+            double angle = 2 * Math.PI * s / order;
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            put(matrices, s, cos, -sin, sin, cos);
+        }
+        return new Symmetry(matrices);
+    }
+
+    /**
+     * Creates the dihedral symmetry group of the given order:
+     * the rotations of the cyclic group followed by the reflections across
+     * the lines through the origin at multiples of pi/order.
+     *
+     * @param order the number of rotations, must be positive
+     * @return the dihedral symmetry with 2 * order maps
+     */
+    public static Symmetry dihedral(int order) {
+        checkOrder(order);
+        double[] matrices = new double[2 * order * MATRIX_SIZE];
+        for (int s = 0; s < order; s++) {
+            double angle = 2 * Math.PI * s / order;
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            put(matrices, s, cos, -sin, sin, cos);
+            put(matrices, order + s, cos, sin, sin, -cos);
+        }
+        return new Symmetry(matrices);
+    }
+
+    /**
+     * Parses a symmetry specification.
+     * A plain number {@code N} or {@code CN} means N rotations, {@code DN} means N rotations plus N mirror images.
+     *
+     * @param spec the symmetry specification, for example "6", "C6" or "D6"
+     * @return the parsed symmetry
+     * @throws IllegalArgumentException if the specification is malformed
+     */
+    public static Symmetry parse(String spec) {
+        if (spec == null) {
+            throw new IllegalArgumentException("Symmetry is not specified");
+        }
+        String normalized = spec.trim().toUpperCase(Locale.ROOT);
+        if (normalized.startsWith("D")) {
+            return dihedral(Integer.parseInt(normalized.substring(1)));
+        }
+        if (normalized.startsWith("C")) {
+            return rotational(Integer.parseInt(normalized.substring(1)));
+        }
+        return rotational(Integer.parseInt(normalized));
+    }
+
+    /**
+     * Returns the number of maps in the group.
+     *
+     * @return the number of 2x2 matrices in the table
+     */
+    public int size() {
+        return matrices.length / MATRIX_SIZE;
+    }
+
+    /**
+     * Returns the table of maps as consecutive {@code [a, b, c, d]} entries,
+     * where a map sends (x, y) to (a * x + b * y, c * x + d * y).
+     * The array is shared and must not be modified.
+     *
+     * @return the flat table of 2x2 matrices
+     */
+    public double[] matrices() {
+        return matrices;
+    }
+
+    private static void checkOrder(int order) {
+        if (order < 1) {
+            throw new IllegalArgumentException("Symmetry order must be positive: " + order);
+        }
+    }
+
+    @SuppressWarnings("checkstyle:MagicNumber")
+    private static void put(double[] matrices, int index, double a, double b, double c, double d) {
+        int offset = index * MATRIX_SIZE;
+        matrices[offset] = a;
+        matrices[offset + 1] = b;
+        matrices[offset + 2] = c;
+        matrices[offset + 3] = d;
+    }
+}
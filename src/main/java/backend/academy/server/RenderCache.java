@@ -0,0 +1,153 @@
+package backend.academy.server;
+
+import backend.academy.cli.RenderJob;
+import backend.academy.fractal.image.ChaosKernel;
+import backend.academy.fractal.image.ChaosKernels;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.units.AffineMatrix;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The RenderCache class keeps encoded images by a content hash of everything that decides the image.
+ * Recently used images are kept in memory up to a total size, and every image is also written
+ * to a directory so that it outlives evictions and restarts.
+ * Only seeded jobs are cached: they render the same image on any number of threads,
+ * while an unseeded job is expected to render a new image every time.
+ * Nothing is cached while the configured chaos kernel does not reproduce seeded renders bit for bit.
+ */
+@Slf4j
+public final class RenderCache {
+    private static final int FORMAT_VERSION = 2;
+    private final Cache<String, byte[]> memory;
+    private final Path directory;
+
+    /**
+     * Constructs a RenderCache.
+     *
+     * @param maxMemoryBytes the total size of the images kept in memory
+     * @param directory      the directory every image is written to, or null to keep images in memory only
+     * @throws IOException if the directory cannot be created
+     */
+    public RenderCache(long maxMemoryBytes, Path directory) throws IOException {
+        this.memory = Caffeine.newBuilder()
+            .maximumWeight(maxMemoryBytes)
+            .weigher((String key, byte[] image) -> image.length)
+            .build();
+        this.directory = directory;
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * Computes the cache key of a job: a SHA-256 hash of the size, the sample budget, the seed, the format,
+     * the configured chaos kernel and the transformations the job resolves to.
+     * Jobs that pick a random transformation or matrix set resolve them from their seed first,
+     * so equal flames given in different ways share a key,
+     * and the number of threads, which does not change a seeded image, is left out.
+     *
+     * @param job the job
+     * @return the key as a hex string, or null if the job is not reproducible and must not be cached
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public static String key(RenderJob job) {
+        ChaosKernel kernel = ChaosKernels.configured();
+        if (job.seed() == null || !kernel.reproducible()) {
+            return null;
+        }
+        RandomSource random = job.random();
+        String transformation = job.createTransformation(random).getClass().getName();
+        AffineMatrix[] matrices = job.createMatrices(random);
+        double[] symmetry = job.symmetryGroup().matrices();
+        ByteBuffer buffer = ByteBuffer.allocate(
+            Integer.BYTES * 6 + Long.BYTES + Double.BYTES * (7 * matrices.length + symmetry.length)
+                + Integer.BYTES * 3 * matrices.length);
+        buffer.putInt(FORMAT_VERSION)
+            .putInt(job.width())
+            .putInt(job.height())
+            .putInt(job.iterations())
+            .putInt(job.points())
+            .putInt(job.format().ordinal())
+            .putLong(job.seed());
+        for (AffineMatrix matrix : matrices) {
+            buffer.putDouble(matrix.a()).putDouble(matrix.b()).putDouble(matrix.c())
+                .putDouble(matrix.d()).putDouble(matrix.e()).putDouble(matrix.f())
+                .putInt(matrix.red()).putInt(matrix.green()).putInt(matrix.blue())
+                .putDouble(matrix.weight());
+        }
+        for (double value : symmetry) {
+            buffer.putDouble(value);
+        }
+        MessageDigest digest = sha256();
+        digest.update((kernel.name() + '\n' + transformation).getBytes(StandardCharsets.UTF_8));
+        digest.update(buffer.array());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Looks an image up in memory and then on disk. An image found on disk is kept in memory again.
+     *
+     * @param key the key of the image
+     * @return the encoded image, or null if it is not cached
+     */
+    public byte[] get(String key) {
+        byte[] image = memory.getIfPresent(key);
+        if (image != null || directory == null) {
+            return image;
+        }
+        Path file = directory.resolve(key);
+        try {
+            image = Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;
+        }
+        memory.put(key, image);
+        return image;
+    }
+
+    /**
+     * Caches an image in memory and on disk. A failure to write the file is logged and otherwise ignored,
+     * because the image is still served from memory.
+     *
+     * @param key   the key of the image
+     * @param image the encoded image
+     */
+    public void put(String key, byte[] image) {
+        memory.put(key, image);
+        if (directory == null) {
+            return;
+        }
+        Path file = directory.resolve(key);
+        try {
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, image);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write {} to the render cache", file, e);
+        }
+    }
+
+    /**
+     * Creates a SHA-256 digest, which every Java platform provides.
+     *
+     * @return the digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package backend.academy.server;
+
+import backend.academy.fractal.image.RenderHandle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The RenderFlight class is a single render shared by all tickets waiting for the same image.
+ * It counts the tickets still interested in it and cancels the render when the last one is cancelled.
+ */
+final class RenderFlight {
+    private final CompletableFuture<byte[]> image;
+    private final AtomicInteger waiting = new AtomicInteger(1);
+    private volatile RenderHandle handle;
+
+    /**
+     * Constructs a RenderFlight with one interested ticket.
+     */
+    RenderFlight() {
+        this(new CompletableFuture<>());
+    }
+
+    private RenderFlight(CompletableFuture<byte[]> image) {
+        this.image = image;
+    }
+
+    /**
+     * Creates a flight of an image that is already rendered.
+     *
+     * @param image the encoded image
+     * @return the completed flight
+     */
+    static RenderFlight completed(byte[] image) {
+        return new RenderFlight(CompletableFuture.completedFuture(image));
+    }
+
+    /**
+     * Returns the future of the encoded image, shared by all tickets of the flight.
+     *
+     * @return the future of the encoded image
+     */
+    CompletableFuture<byte[]> image() {
+        return image;
+    }
+
+    /**
+     * Returns the render of the flight.
+     *
+     * @return the handle of the render, or null if it has not started
+     */
+    RenderHandle handle() {
+        return handle;
+    }
+
+    /**
+     * Adds another interested ticket, unless every earlier ticket was cancelled already.
+     *
+     * @return true if the ticket joined, false if the flight is cancelled
+     */
+    boolean join() {
+        for (int count = waiting.get(); count > 0; count = waiting.get()) {
+            if (waiting.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a cancelled ticket, cancelling the render if it was the last interested one.
+     */
+    void release() {
+        if (waiting.decrementAndGet() == 0) {
+            image.cancel(false);
+            RenderHandle current = handle;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    /**
+     * Attaches the started render, cancelling it if the flight was cancelled meanwhile.
+     *
+     * @param started the handle of the render
+     */
+    void start(RenderHandle started) {
+        handle = started;
+        if (image.isDone()) {
+            started.cancel();
+        }
+    }
+}
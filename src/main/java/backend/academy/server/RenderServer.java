@@ -0,0 +1,333 @@
+package backend.academy.server;
+
+import backend.academy.cli.RenderJob;
+import backend.academy.fractal.image.ImageFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The RenderServer class exposes a {@link RenderService} over HTTP.
+ * <ul>
+ *     <li>{@code GET|POST /render?...} renders a job and responds with the image.</li>
+ *     <li>{@code POST /jobs?...} queues a job and responds with 202 and the id of its ticket.</li>
+ *     <li>{@code GET /jobs/{id}} responds with the image once it is ready, with 202 and the progress before.</li>
+ *     <li>{@code DELETE /jobs/{id}} cancels a job.</li>
+ * </ul>
+ * A job is described by the query or form parameters width, height, transformation, iterations, points,
+ * matrix (repeatable, nine space-separated numbers and an optional weight), symmetry, threads, format and seed,
+ * like the flags of the command line. A full queue is answered with 503 and Retry-After.
+ * Every exchange is handled on its own virtual thread, so waiting for a render holds no platform thread.
+ */
+public final class RenderServer implements AutoCloseable {
+    private static final int OK = 200;
+    private static final int ACCEPTED = 202;
+    private static final int NO_CONTENT = 204;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int INTERNAL_ERROR = 500;
+    private static final int UNAVAILABLE = 503;
+    private static final String RETRY_AFTER_SECONDS = "5";
+    private static final String JOBS = "/jobs";
+    private final RenderService service;
+    private final HttpServer server;
+    private final ExecutorService exchanges;
+
+    /**
+     * Constructs a RenderServer. The server takes ownership of the service and closes it with itself.
+     *
+     * @param address the address to listen on, port 0 picks a free port
+     * @param service the service rendering the jobs
+     * @throws IOException if the address cannot be bound
+     */
+    public RenderServer(InetSocketAddress address, RenderService service) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(address, 0);
+        this.exchanges = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(exchanges);
+        server.createContext("/render", this::render);
+        server.createContext(JOBS, this::jobs);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server and cancels the queued and running jobs.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        service.close();
+        exchanges.shutdown();
+    }
+
+    /**
+     * Renders a job and responds with the image.
+     *
+     * @param exchange the exchange
+     * @throws IOException if the response cannot be sent
+     */
+    private void render(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"POST".equals(method)) {
+                sendText(exchange, METHOD_NOT_ALLOWED, "Use GET or POST");
+                return;
+            }
+            RenderTicket ticket = submit(exchange);
+            if (ticket == null) {
+                return;
+            }
+            try {
+                sendImage(exchange, ticket, ticket.image().get());
+            } catch (ExecutionException e) {
+                sendText(exchange, INTERNAL_ERROR, "The render failed: " + e.getCause().getMessage());
+            } catch (CancellationException e) {
+                sendText(exchange, UNAVAILABLE, "The render was cancelled");
+            } catch (InterruptedException e) {
+                ticket.cancel();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Queues a job, or reports, returns or cancels a queued one.
+     *
+     * @param exchange the exchange
+     * @throws IOException if the response cannot be sent
+     */
+    private void jobs(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals(JOBS) || path.equals(JOBS + "/")) {
+                if (!"POST".equals(method)) {
+                    sendText(exchange, METHOD_NOT_ALLOWED, "Use POST to queue a job");
+                    return;
+                }
+                RenderTicket ticket = submit(exchange);
+                if (ticket != null) {
+                    exchange.getResponseHeaders().set("Location", JOBS + "/" + ticket.id());
+                    sendStatus(exchange, ACCEPTED, ticket);
+                }
+                return;
+            }
+            RenderTicket ticket = service.ticket(path.substring(JOBS.length() + 1));
+            if (ticket == null) {
+                sendText(exchange, NOT_FOUND, "No such job");
+            } else if ("DELETE".equals(method)) {
+                ticket.cancel();
+                exchange.sendResponseHeaders(NO_CONTENT, -1);
+            } else if (!"GET".equals(method)) {
+                sendText(exchange, METHOD_NOT_ALLOWED, "Use GET or DELETE");
+            } else if (ticket.status() == RenderTicket.Status.DONE) {
+                sendImage(exchange, ticket, ticket.image().join());
+            } else if (ticket.status() == RenderTicket.Status.FAILED) {
+                sendStatus(exchange, INTERNAL_ERROR, ticket);
+            } else {
+                sendStatus(exchange, ACCEPTED, ticket);
+            }
+        }
+    }
+
+    /**
+     * Submits the job described by the parameters of a request, answering invalid and rejected ones.
+     *
+     * @param exchange the exchange
+     * @return the ticket of the job, or null if the request was answered with an error
+     * @throws IOException if the request cannot be read or the response cannot be sent
+     */
+    private RenderTicket submit(HttpExchange exchange) throws IOException {
+        try {
+            return service.submit(parseJob(parameters(exchange)));
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            sendText(exchange, UNAVAILABLE, "The render queue is full");
+        }
+        return null;
+    }
+
+    /**
+     * Builds a job from request parameters.
+     *
+     * @param parameters the values of the request parameters by name
+     * @return the job
+     */
+    static RenderJob parseJob(Map<String, List<String>> parameters) {
+        String format = first(parameters, "format");
+        String seed = first(parameters, "seed");
+        return new RenderJob(
+            null,
+            intValue(parameters, "width", 0),
+            intValue(parameters, "height", 0),
+            intValue(parameters, "transformation", 0),
+            intValue(parameters, "iterations", RenderJob.DEFAULT_ITERATIONS),
+            intValue(parameters, "points", RenderJob.DEFAULT_POINTS),
+            parameters.get("matrix"),
+            first(parameters, "symmetry"),
+            intValue(parameters, "threads", 0),
+            format == null ? null : ImageFormat.valueOf(format.toUpperCase(Locale.ROOT)),
+            seed == null ? null : Long.valueOf(seed)
+        );
+    }
+
+    /**
+     * Reads the query parameters of a request and, for a POST, its form-encoded body.
+     *
+     * @param exchange the exchange
+     * @return the values of the parameters by name
+     * @throws IOException if the body cannot be read
+     */
+    private static Map<String, List<String>> parameters(HttpExchange exchange) throws IOException {
+        Map<String, List<String>> parameters = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), parameters);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            try (InputStream body = exchange.getRequestBody()) {
+                parse(new String(body.readAllBytes(), StandardCharsets.UTF_8), parameters);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Parses URL-encoded parameters.
+     *
+     * @param encoded    the parameters as name=value pairs separated by ampersands, or null
+     * @param parameters the map the values are added to
+     */
+    private static void parse(String encoded, Map<String, List<String>> parameters) {
+        if (encoded == null || encoded.isBlank()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.computeIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), key -> new ArrayList<>())
+                .add(URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Returns the first value of a parameter.
+     *
+     * @param parameters the values of the parameters by name
+     * @param name       the name of the parameter
+     * @return the first value, or null if the parameter is missing or empty
+     */
+    private static String first(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.getFirst().isBlank() ? null : values.getFirst();
+    }
+
+    /**
+     * Returns the value of an integer parameter.
+     *
+     * @param parameters   the values of the parameters by name
+     * @param name         the name of the parameter
+     * @param defaultValue the value of a missing parameter
+     * @return the value
+     */
+    private static int intValue(Map<String, List<String>> parameters, String name, int defaultValue) {
+        String value = first(parameters, name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Responds with the encoded image of a finished ticket.
+     *
+     * @param exchange the exchange
+     * @param ticket   the finished ticket
+     * @param image    the encoded image
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendImage(HttpExchange exchange, RenderTicket ticket, byte[] image) throws IOException {
+        String contentType = switch (ticket.job().format()) {
+            case PNG -> "image/png";
+            case JPEG -> "image/jpeg";
+            case BMP -> "image/bmp";
+        };
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        send(exchange, OK, image);
+    }
+
+    /**
+     * Responds with the state of a ticket as JSON.
+     *
+     * @param exchange the exchange
+     * @param status   the status code
+     * @param ticket   the ticket
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendStatus(HttpExchange exchange, int status, RenderTicket ticket) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        String json = String.format(
+            Locale.ROOT,
+            "{\"id\":\"%s\",\"status\":\"%s\",\"progress\":%.3f}",
+            ticket.id(), ticket.status(), ticket.progress()
+        );
+        send(exchange, status, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Responds with a plain text message.
+     *
+     * @param exchange the exchange
+     * @param status   the status code
+     * @param message  the message
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, String.valueOf(message).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a response with a body.
+     *
+     * @param exchange the exchange
+     * @param status   the status code
+     * @param body     the body
+     * @throws IOException if the response cannot be sent
+     */
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        // a length of 0 would announce a chunked body, an empty one is announced with -1
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
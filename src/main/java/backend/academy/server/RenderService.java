@@ -0,0 +1,249 @@
+package backend.academy.server;
+
+import backend.academy.cli.RenderJob;
+import backend.academy.fractal.image.AccumulationMode;
+import backend.academy.fractal.image.FractalGenerator;
+import backend.academy.fractal.image.ImageUtils;
+import backend.academy.fractal.image.RenderHandle;
+import backend.academy.fractal.image.RenderOptions;
+import backend.academy.fractal.image.RenderScheduler;
+import backend.academy.fractal.random.RandomSource;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The RenderService class renders submitted jobs on a fixed number of workers.
+ * Jobs wait in a bounded queue, and a job submitted while the queue is full is rejected
+ * instead of piling up, so the memory of the service is bounded by the number of workers,
+ * the largest allowed image and the finished images it keeps for polling.
+ * The tickets of jobs that wait for a render of an identical job count against the same bound,
+ * and the work of a single job is bounded by its number of points times its iterations.
+ * Every job accumulates into a single shared histogram, so a render needs one histogram
+ * however many threads work on it.
+ * With a {@link RenderCache}, a seeded job whose image is cached is answered without rendering,
+ * and identical seeded jobs submitted while one of them renders wait for that render
+ * instead of taking another worker.
+ */
+public final class RenderService implements AutoCloseable {
+    private static final int RETAINED_RESULTS = 64;
+    private final RenderScheduler scheduler;
+    private final RenderCache cache;
+    private final long maxPixels;
+    private final long maxSteps;
+    private final int retainedTickets;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, RenderTicket> tickets = new LinkedHashMap<>();
+    private final Map<String, RenderFlight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a RenderService.
+     *
+     * @param scheduler     the scheduler the renders run on
+     * @param workerCount   the number of jobs rendered at the same time
+     * @param queueCapacity the number of jobs waiting for a worker before new ones are rejected
+     * @param maxPixels     the largest image the service renders, in pixels
+     * @param maxSteps      the largest number of points times iterations of a job
+     */
+    public RenderService(
+        RenderScheduler scheduler,
+        int workerCount,
+        int queueCapacity,
+        long maxPixels,
+        long maxSteps
+    ) {
+        this(scheduler, workerCount, queueCapacity, maxPixels, maxSteps, null);
+    }
+
+    /**
+     * Constructs a RenderService that caches the images of seeded jobs.
+     *
+     * @param scheduler     the scheduler the renders run on
+     * @param workerCount   the number of jobs rendered at the same time
+     * @param queueCapacity the number of jobs waiting for a worker before new ones are rejected
+     * @param maxPixels     the largest image the service renders, in pixels
+     * @param maxSteps      the largest number of points times iterations of a job
+     * @param cache         the cache of the images, or null to render every job
+     */
+    public RenderService(
+        RenderScheduler scheduler,
+        int workerCount,
+        int queueCapacity,
+        long maxPixels,
+        long maxSteps,
+        RenderCache cache
+    ) {
+        if (workerCount <= 0 || queueCapacity <= 0 || maxPixels <= 0 || maxSteps <= 0) {
+            throw new IllegalArgumentException("Workers, queue capacity, image and work limits must be positive");
+        }
+        this.scheduler = scheduler;
+        this.cache = cache;
+        this.maxPixels = maxPixels;
+        this.maxSteps = maxSteps;
+        this.retainedTickets = workerCount + queueCapacity + RETAINED_RESULTS;
+        this.workers = new ThreadPoolExecutor(
+            workerCount, workerCount, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity));
+    }
+
+    /**
+     * Queues a job.
+     *
+     * @param job the job to render
+     * @return the ticket of the job
+     * @throws IllegalArgumentException   if the image or the work of the job is larger than the limits of the service
+     * @throws RejectedExecutionException if the queue is full, too many tickets are pending or the service is closed
+     */
+    public RenderTicket submit(RenderJob job) {
+        if ((long) job.width() * job.height() > maxPixels) {
+            throw new IllegalArgumentException("The image must not have more than " + maxPixels + " pixels");
+        }
+        if ((long) job.points() * job.iterations() > maxSteps) {
+            throw new IllegalArgumentException(
+                "The points times the iterations of a job must not be more than " + maxSteps);
+        }
+        String key = cache == null ? null : RenderCache.key(job);
+        byte[] cached = key == null ? null : cache.get(key);
+        synchronized (tickets) {
+            // a slot is taken before anything is scheduled, so a rejected job leaves no render behind
+            reserveTicket();
+            RenderFlight flight;
+            if (cached != null) {
+                flight = RenderFlight.completed(cached);
+            } else if (key == null) {
+                flight = new RenderFlight();
+                schedule(flight, job, null);
+            } else {
+                RenderFlight[] started = new RenderFlight[1];
+                flight = inFlight.compute(key, (k, current) -> {
+                    if (current != null && current.join()) {
+                        return current;
+                    }
+                    started[0] = new RenderFlight();
+                    return started[0];
+                });
+                if (started[0] != null) {
+                    schedule(flight, job, key);
+                }
+            }
+            RenderTicket ticket = new RenderTicket(UUID.randomUUID().toString(), job, flight);
+            tickets.put(ticket.id(), ticket);
+            return ticket;
+        }
+    }
+
+    /**
+     * Looks a ticket up by its id. Finished tickets are forgotten once enough newer ones finish.
+     *
+     * @param id the id of the ticket
+     * @return the ticket, or null if there is no such ticket
+     */
+    public RenderTicket ticket(String id) {
+        synchronized (tickets) {
+            return tickets.get(id);
+        }
+    }
+
+    /**
+     * Stops accepting jobs and cancels the queued and running ones.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        List<RenderTicket> pending;
+        synchronized (tickets) {
+            pending = new ArrayList<>(tickets.values());
+        }
+        for (RenderTicket ticket : pending) {
+            ticket.cancel();
+        }
+    }
+
+    /**
+     * Makes room in the registry for a new ticket, forgetting the oldest finished tickets beyond the retained number.
+     * Must be called holding the lock of the registry.
+     *
+     * @throws RejectedExecutionException if the registry is full of tickets that are not finished
+     */
+    private void reserveTicket() {
+        Iterator<RenderTicket> oldest = tickets.values().iterator();
+        while (tickets.size() >= retainedTickets && oldest.hasNext()) {
+            if (oldest.next().image().isDone()) {
+                oldest.remove();
+            }
+        }
+        if (tickets.size() >= retainedTickets) {
+            throw new RejectedExecutionException("Too many jobs are pending");
+        }
+    }
+
+    /**
+     * Queues the render of a flight.
+     *
+     * @param flight the flight to render
+     * @param job    the job to render
+     * @param key    the cache key of the job, or null if the image is not cached
+     * @throws RejectedExecutionException if the queue is full or the service is closed
+     */
+    private void schedule(RenderFlight flight, RenderJob job, String key) {
+        try {
+            workers.execute(() -> render(flight, job, key));
+        } catch (RejectedExecutionException e) {
+            // tickets that joined the flight meanwhile fail as well
+            flight.image().completeExceptionally(e);
+            if (key != null) {
+                inFlight.remove(key, flight);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Renders the job of a flight on a worker and completes the flight with the encoded image.
+     *
+     * @param flight the flight to render
+     * @param job    the job to render
+     * @param key    the cache key of the job, or null if the image is not cached
+     */
+    private void render(RenderFlight flight, RenderJob job, String key) {
+        try {
+            if (flight.image().isDone()) {
+                return;
+            }
+            RandomSource random = job.random();
+            FractalGenerator generator = new FractalGenerator(
+                job.width(), job.height(), job.createTransformation(random), random, scheduler);
+            RenderHandle handle = generator.start(
+                job.iterations(),
+                job.points(),
+                job.createMatrices(random),
+                job.symmetryGroup(),
+                RenderOptions.threads(job.threads()).withMode(AccumulationMode.SHARED)
+            );
+            flight.start(handle);
+            BufferedImage image = generator.toImage(handle.join());
+            if (!handle.isCancelled()) {
+                byte[] encoded = ImageUtils.encode(image, job.format());
+                // cached before the flight lands, so that an identical job finds either of them
+                if (key != null) {
+                    cache.put(key, encoded);
+                }
+                flight.image().complete(encoded);
+            }
+        } catch (RuntimeException e) {
+            flight.image().completeExceptionally(e);
+        } finally {
+            if (key != null) {
+                inFlight.remove(key, flight);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package backend.academy.server;
+
+import backend.academy.cli.RenderJob;
+import backend.academy.fractal.image.RenderHandle;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The RenderTicket class tracks a job submitted to a {@link RenderService}.
+ * Clients poll it by its id until the encoded image is ready, and it can be cancelled
+ * whether the job is still queued or already rendering. Tickets of identical jobs share one render,
+ * which is cancelled only when all of them are.
+ */
+public final class RenderTicket {
+    private final String id;
+    private final RenderJob job;
+    private final RenderFlight flight;
+    private final CompletableFuture<byte[]> image;
+
+    /**
+     * Constructs a RenderTicket waiting for the render of a flight.
+     *
+     * @param id     the id of the ticket
+     * @param job    the job to render
+     * @param flight the render of the job, which the ticket has joined
+     */
+    RenderTicket(String id, RenderJob job, RenderFlight flight) {
+        this.id = id;
+        this.job = job;
+        this.flight = flight;
+        // a copy, so that cancelling this ticket does not cancel the other tickets of the flight
+        this.image = flight.image().copy();
+    }
+
+    /**
+     * Returns the id clients poll the ticket by.
+     *
+     * @return the id of the ticket
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Returns the job of the ticket.
+     *
+     * @return the job
+     */
+    public RenderJob job() {
+        return job;
+    }
+
+    /**
+     * Returns the future of the image encoded in the format of the job.
+     * It completes exceptionally if the render fails and is cancelled if the ticket is.
+     *
+     * @return the future of the encoded image
+     */
+    public CompletableFuture<byte[]> image() {
+        return image;
+    }
+
+    /**
+     * Returns the state of the job.
+     *
+     * @return the state of the job
+     */
+    public Status status() {
+        if (image.isDone()) {
+            return image.isCompletedExceptionally() ? Status.FAILED : Status.DONE;
+        }
+        return flight.handle() == null ? Status.QUEUED : Status.RUNNING;
+    }
+
+    /**
+     * Returns the share of the points of the job that are rendered.
+     *
+     * @return the progress between 0 and 1
+     */
+    public double progress() {
+        RenderHandle current = flight.handle();
+        if (status() == Status.DONE) {
+            return 1.0;
+        }
+        return current == null ? 0.0 : current.progress();
+    }
+
+    /**
+     * Cancels the ticket. Unless other tickets wait for the same image,
+     * a queued job is not started and a running one stops within one batch.
+     */
+    public void cancel() {
+        if (image.cancel(false)) {
+            flight.release();
+        }
+    }
+
+    /**
+     * The state of a job.
+     */
+    public enum Status {
+        /**
+         * The job waits for a free worker.
+         */
+        QUEUED,
+
+        /**
+         * The job is rendering.
+         */
+        RUNNING,
+
+        /**
+         * The image is ready.
+         */
+        DONE,
+
+        /**
+         * The render failed or was cancelled.
+         */
+        FAILED
+    }
+}
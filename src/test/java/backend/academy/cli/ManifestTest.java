@@ -0,0 +1,74 @@
+package backend.academy.cli;
+
+import backend.academy.fractal.image.ImageFormat;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadCsvJobsWithDefaults() {
+        List<RenderJob> jobs = Manifest.readCsv(List.of(
+            "output, width, height, transformation, iterations, points, matrices, symmetry, format, seed",
+            "a.png, 320, 240, 1, 50, 1000, 1 0 0 0 1 0 255 0 0; 0.5 0 0 0 0.5 0 0 255 0, D3, png, 42",
+            "",
+            "b.jpeg, 640, 480, 0, , , , , jpeg,"
+        ));
+
+        assertEquals(2, jobs.size());
+        RenderJob first = jobs.get(0);
+        assertEquals(320, first.width());
+        assertEquals(2, first.createMatrices(first.random()).length);
+        assertEquals(42L, first.seed());
+        RenderJob second = jobs.get(1);
+        assertEquals(ImageFormat.JPEG, second.format());
+        assertEquals(RenderJob.DEFAULT_ITERATIONS, second.iterations());
+        assertEquals(RenderJob.DEFAULT_POINTS, second.points());
+        assertEquals("1", second.symmetry());
+        assertTrue(second.matrices().isEmpty());
+        assertNull(second.seed());
+        assertEquals(Runtime.getRuntime().availableProcessors(), second.threads());
+    }
+
+    @Test
+    void shouldRejectDuplicateOutputs() throws IOException {
+        Path manifest = directory.resolve("jobs.csv");
+        Files.write(manifest, List.of(
+            "output,width,height,iterations,points",
+            "same.png,10,10,5,5",
+            "same.png,20,20,5,5"
+        ));
+
+        assertThrows(IllegalArgumentException.class, () -> Manifest.read(manifest));
+    }
+
+    @Test
+    void shouldRememberCompletedJobs() throws IOException {
+        Path journal = directory.resolve("jobs.journal");
+        RenderJob job = new RenderJob("a.png", 10, 10, 1, 5, 5, null, null, 1, null, 1L);
+
+        new ProgressJournal(journal).markCompleted(job);
+
+        assertTrue(new ProgressJournal(journal).isCompleted(job));
+    }
+
+    @Test
+    void shouldRenderEditedJobAgain() throws IOException {
+        Path journal = directory.resolve("jobs.journal");
+        RenderJob job = new RenderJob("a.png", 10, 10, 1, 5, 5, null, null, 1, null, 1L);
+        RenderJob edited = new RenderJob("a.png", 10, 10, 1, 5, 50, null, null, 1, null, 1L);
+        RenderJob otherThreads = new RenderJob("a.png", 10, 10, 1, 5, 5, null, null, 2, null, 1L);
+
+        new ProgressJournal(journal).markCompleted(job);
+
+        assertFalse(new ProgressJournal(journal).isCompleted(edited));
+        assertTrue(new ProgressJournal(journal).isCompleted(otherThreads));
+    }
+}
@@ -0,0 +1,86 @@
+package backend.academy.fractal.checkpoint;
+
+import backend.academy.fractal.image.AccumulationMode;
+import backend.academy.fractal.image.ChaosGame;
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.image.RenderHandle;
+import backend.academy.fractal.image.RenderResult;
+import backend.academy.fractal.image.RenderScheduler;
+import backend.academy.fractal.transformations.linear.AffineTransformations;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.units.Symmetry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointedRenderTest {
+    private static final RenderScheduler SCHEDULER = new RenderScheduler(2);
+    private static final ChaosGame CHAOS_GAME = new ChaosGame(
+        64, 48, new DiamondTransformation(), new AffineTransformations().getTransformation(1), Symmetry.parse("2"), 50
+    );
+
+    @TempDir
+    Path directory;
+
+    @AfterAll
+    static void closeScheduler() {
+        SCHEDULER.close();
+    }
+
+    @Test
+    void shouldReadWrittenCheckpoint() throws IOException {
+        Histogram histogram = SCHEDULER.render(CHAOS_GAME, 2_000, 2, AccumulationMode.PER_THREAD, 7);
+        Path path = directory.resolve("render.ckpt");
+
+        new Checkpoint(CHAOS_GAME.fingerprint(), 7, 2_000, 3, histogram).write(path);
+        Checkpoint checkpoint = Checkpoint.read(path);
+
+        assertEquals(CHAOS_GAME.fingerprint(), checkpoint.fingerprint());
+        assertEquals(7, checkpoint.seed());
+        assertEquals(3, checkpoint.completedBatches());
+        for (int index = 0; index < histogram.size(); index++) {
+            assertEquals(histogram.hitCount(index), checkpoint.histogram().hitCount(index));
+            assertEquals(histogram.blueSum(index), checkpoint.histogram().blueSum(index));
+        }
+        assertFalse(Files.exists(directory.resolve("render.ckpt.tmp")));
+    }
+
+    @Test
+    void shouldResumeToSameResultAsUninterruptedRender() throws IOException {
+        Histogram expected = SCHEDULER.render(CHAOS_GAME, 20_000, 2, AccumulationMode.PER_THREAD, 42);
+        RenderHandle interrupted = SCHEDULER.start(CHAOS_GAME, 20_000, 2, AccumulationMode.PER_THREAD, 42);
+        interrupted.cancel();
+        Histogram partial = interrupted.join();
+        Path path = directory.resolve("render.ckpt");
+        new Checkpoint(CHAOS_GAME.fingerprint(), 42, 20_000, interrupted.completedBatches(), partial).write(path);
+
+        RenderResult result = new CheckpointedRender(path, Duration.ofSeconds(1), true)
+            .render(SCHEDULER, CHAOS_GAME, 1, 2, AccumulationMode.SHARED, 0);
+        Histogram resumed = result.histogram();
+
+        assertEquals(42, result.seed());
+        assertEquals(20_000, result.points());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.hitCount(index), resumed.hitCount(index));
+            assertEquals(expected.redSum(index), resumed.redSum(index));
+        }
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void shouldRejectCheckpointOfDifferentFlame() throws IOException {
+        Path path = directory.resolve("render.ckpt");
+        new Checkpoint(CHAOS_GAME.fingerprint() + 1, 42, 1_000, 0, Histogram.create(64, 48)).write(path);
+        CheckpointedRender render = new CheckpointedRender(path, Duration.ofSeconds(1), true);
+
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> render.render(SCHEDULER, CHAOS_GAME, 1_000, 2, AccumulationMode.SHARED, 42)
+        );
+    }
+}
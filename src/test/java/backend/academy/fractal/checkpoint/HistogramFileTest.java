@@ -0,0 +1,114 @@
+package backend.academy.fractal.checkpoint;
+
+import backend.academy.fractal.image.AccumulationMode;
+import backend.academy.fractal.image.ChaosGame;
+import backend.academy.fractal.image.Histogram;
+import backend.academy.fractal.image.RenderScheduler;
+import backend.academy.fractal.transformations.linear.AffineTransformations;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.units.Symmetry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramFileTest {
+    private static final RenderScheduler SCHEDULER = new RenderScheduler(2);
+    private static final ChaosGame CHAOS_GAME = new ChaosGame(
+        64, 48, new DiamondTransformation(), new AffineTransformations().getTransformation(1), Symmetry.parse("2"), 50
+    );
+
+    @TempDir
+    Path directory;
+
+    @AfterAll
+    static void closeScheduler() {
+        SCHEDULER.close();
+    }
+
+    @Test
+    void shouldReadWrittenHistogramSmallerThanCheckpoint() throws IOException {
+        Histogram histogram = SCHEDULER.render(CHAOS_GAME, 5_000, 2, AccumulationMode.PER_THREAD, 7);
+        Path path = directory.resolve("render.hist");
+        Path checkpoint = directory.resolve("render.ckpt");
+
+        new HistogramFile(CHAOS_GAME.fingerprint(), 7, 5_000, histogram).write(path);
+        new Checkpoint(CHAOS_GAME.fingerprint(), 7, 5_000, 0, histogram).write(checkpoint);
+        HistogramFile read = HistogramFile.read(path);
+
+        assertEquals(CHAOS_GAME.fingerprint(), read.fingerprint());
+        assertEquals(List.of(7L), read.seeds());
+        assertEquals(5_000, read.points());
+        assertSameCells(histogram, read.histogram());
+        assertTrue(Files.size(path) < Files.size(checkpoint) / 4);
+    }
+
+    @Test
+    void shouldMergeRendersIntoTheirSum() throws IOException {
+        Histogram first = SCHEDULER.render(CHAOS_GAME, 4_000, 2, AccumulationMode.PER_THREAD, 1);
+        Histogram second = SCHEDULER.render(CHAOS_GAME, 6_000, 2, AccumulationMode.PER_THREAD, 2);
+        Path firstPath = directory.resolve("first.hist");
+        Path secondPath = directory.resolve("second.hist");
+        new HistogramFile(CHAOS_GAME.fingerprint(), 1, 4_000, first).write(firstPath);
+        new HistogramFile(CHAOS_GAME.fingerprint(), 2, 6_000, second).write(secondPath);
+
+        HistogramFile merged = HistogramFile.merge(List.of(firstPath, secondPath));
+
+        first.merge(second);
+        assertSameCells(first, merged.histogram());
+        assertEquals(List.of(1L, 2L), merged.seeds());
+        assertEquals(10_000, merged.points());
+    }
+
+    @Test
+    void shouldRejectMergeRepeatingSeed() throws IOException {
+        Histogram histogram = SCHEDULER.render(CHAOS_GAME, 1_000, 1, AccumulationMode.PER_THREAD, 3);
+        Path first = directory.resolve("first.hist");
+        Path second = directory.resolve("second.hist");
+        Path merged = directory.resolve("merged.hist");
+        new HistogramFile(CHAOS_GAME.fingerprint(), 3, 1_000, histogram).write(first);
+        new HistogramFile(CHAOS_GAME.fingerprint(), 4, 1_000, histogram).write(second);
+        HistogramFile.merge(List.of(first, second)).write(merged);
+
+        assertThrows(IOException.class, () -> HistogramFile.merge(List.of(first, first)));
+        assertThrows(IOException.class, () -> HistogramFile.merge(List.of(merged, second)));
+    }
+
+    @Test
+    void shouldRejectHistogramsOfAnotherFlame() throws IOException {
+        Histogram histogram = SCHEDULER.render(CHAOS_GAME, 1_000, 1, AccumulationMode.PER_THREAD, 1);
+        Path path = directory.resolve("flame.hist");
+        Path other = directory.resolve("other.hist");
+        new HistogramFile(CHAOS_GAME.fingerprint(), 1, 1_000, histogram).write(path);
+        new HistogramFile(CHAOS_GAME.fingerprint() + 1, 2, 1_000, histogram).write(other);
+        Files.write(directory.resolve("image.png"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> HistogramFile.merge(List.of(path, other)));
+        assertThrows(IOException.class, () -> HistogramFile.read(directory.resolve("image.png")));
+    }
+
+    @Test
+    void shouldDeleteTemporaryFileOfFailedWrite() throws IOException {
+        Histogram histogram = Histogram.create(4, 4);
+        Path occupied = directory.resolve("occupied.hist");
+        Files.createDirectories(occupied.resolve("child"));
+
+        assertThrows(IOException.class, () -> new HistogramFile(1, 1, 0, histogram).write(occupied));
+        assertFalse(Files.exists(directory.resolve("occupied.hist.tmp")));
+    }
+
+    private static void assertSameCells(Histogram expected, Histogram actual) {
+        assertEquals(expected.width(), actual.width());
+        assertEquals(expected.height(), actual.height());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.hitCount(index), actual.hitCount(index));
+            assertEquals(expected.redSum(index), actual.redSum(index));
+            assertEquals(expected.greenSum(index), actual.greenSum(index));
+            assertEquals(expected.blueSum(index), actual.blueSum(index));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.units.Pixel;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayHistogramTest {
+    @Test
+    void shouldAccumulateHits() {
+        Histogram histogram = Histogram.create(2, 2);
+        int index = histogram.index(1, 0);
+
+        histogram.add(index, 255, 0, 100);
+        histogram.add(index, 55, 50, 0);
+
+        assertEquals(2, histogram.hitCount(index));
+        assertEquals(310, histogram.redSum(index));
+        assertEquals(new Pixel(1, 0, 155, 25, 50, 2, 1), histogram.pixel(1, 0));
+        assertTrue(histogram.contains(1, 0));
+        assertFalse(histogram.contains(0, 1));
+    }
+
+    @Test
+    void shouldMergeHistograms() {
+        Histogram main = Histogram.create(2, 2);
+        Histogram thread = Histogram.create(2, 2);
+        main.add(3, 10, 20, 30);
+        thread.add(3, 30, 20, 10);
+        thread.add(0, 1, 2, 3);
+
+        main.merge(thread);
+
+        assertEquals(2, main.hitCount(3));
+        assertEquals(40, main.blueSum(3));
+        assertEquals(1, main.hitCount(0));
+    }
+
+    @Test
+    void shouldRejectHistogramOfDifferentSize() {
+        Histogram main = Histogram.create(2, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> main.merge(Histogram.create(3, 2)));
+    }
+}
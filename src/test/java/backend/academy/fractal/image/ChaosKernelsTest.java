@@ -0,0 +1,134 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.transformations.Transformation;
+import backend.academy.fractal.transformations.linear.AffineTransformations;
+import backend.academy.fractal.transformations.nonlinear.BubbleTransformation;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.transformations.nonlinear.ExponentialTransformation;
+import backend.academy.fractal.transformations.nonlinear.FisheyeTransformation;
+import backend.academy.fractal.transformations.nonlinear.RaysTransformation;
+import backend.academy.fractal.units.Symmetry;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ChaosKernelsTest {
+    private static final RenderScheduler SCHEDULER = new RenderScheduler(2);
+    private static final int BLOCK = 8;
+
+    @AfterAll
+    static void closeScheduler() {
+        SCHEDULER.close();
+    }
+
+    static Stream<Transformation> transformations() {
+        return Stream.of(
+            new DiamondTransformation(),
+            new BubbleTransformation(),
+            new FisheyeTransformation(),
+            new ExponentialTransformation(),
+            new RaysTransformation()
+        );
+    }
+
+    @Test
+    void shouldFallBackToScalarKernel() {
+        assertNotNull(ChaosKernels.configured());
+        if (!ChaosKernels.vectorAvailable()) {
+            assertSame(ChaosKernels.scalar(), ChaosKernels.vector());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("transformations")
+    void shouldTransformBatchLikeSinglePoints(Transformation transformation) {
+        double[] xs = {0, 0.3, -0.7, 1.1, -1.2};
+        double[] ys = {0, -0.4, 0.9, 0.2, -1.2};
+        double[][] expected = new double[xs.length][];
+        for (int i = 0; i < xs.length; i++) {
+            expected[i] = transformation.transform(xs[i], ys[i]);
+        }
+
+        transformation.transformBatch(xs, ys, xs.length);
+
+        for (int i = 0; i < xs.length; i++) {
+            assertEquals(expected[i][0], xs[i]);
+            assertEquals(expected[i][1], ys[i]);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("transformations")
+    void shouldSampleSameFlameInBatches(Transformation transformation) {
+        ChaosGame scalar = new ChaosGame(64, 48, transformation, new AffineTransformations().getTransformation(1),
+            Symmetry.parse("2"), 50).withKernel(ChaosKernels.scalar());
+        ChaosGame batched = scalar.withKernel(ChaosKernels.batched());
+
+        Histogram expected = SCHEDULER.render(scalar, 20_003, 2, AccumulationMode.PER_THREAD, 1);
+        Histogram otherSeed = SCHEDULER.render(scalar, 20_003, 2, AccumulationMode.PER_THREAD, 2);
+        Histogram actual = SCHEDULER.render(batched, 20_003, 2, AccumulationMode.PER_THREAD, 1);
+        Histogram repeated = SCHEDULER.render(batched, 20_003, 2, AccumulationMode.PER_THREAD, 1);
+
+        assertTrue(distance(expected, actual) < 2 * distance(expected, otherSeed) + 0.01);
+        for (int index = 0; index < actual.size(); index++) {
+            assertEquals(actual.hitCount(index), repeated.hitCount(index));
+        }
+    }
+
+    @Test
+    void shouldTellKernelsApartInFingerprint() {
+        ChaosGame scalar = new ChaosGame(64, 48, new DiamondTransformation(),
+            new AffineTransformations().getTransformation(1), Symmetry.parse("2"), 50)
+            .withKernel(ChaosKernels.scalar());
+
+        assertNotEquals(scalar.fingerprint(), scalar.withKernel(ChaosKernels.batched()).fingerprint());
+        assertEquals(scalar.fingerprint(), scalar.withKernel(ChaosKernels.scalar()).fingerprint());
+    }
+
+    @ParameterizedTest
+    @MethodSource("transformations")
+    void shouldSampleSameFlameAsScalarKernel(Transformation transformation) {
+        assumeTrue(ChaosKernels.vectorAvailable(), "run with -Pvector");
+        // 20 003 walkers is not a multiple of any vector length, so the scalar tail runs too
+        ChaosGame scalar = new ChaosGame(64, 48, transformation, new AffineTransformations().getTransformation(1),
+            Symmetry.parse("2"), 50).withKernel(ChaosKernels.scalar());
+        ChaosGame vector = scalar.withKernel(ChaosKernels.vector());
+
+        Histogram expected = SCHEDULER.render(scalar, 20_003, 2, AccumulationMode.PER_THREAD, 1);
+        Histogram otherSeed = SCHEDULER.render(scalar, 20_003, 2, AccumulationMode.PER_THREAD, 2);
+        Histogram actual = SCHEDULER.render(vector, 20_003, 2, AccumulationMode.PER_THREAD, 1);
+
+        // the vector kernel differs from the scalar one by no more than another seed does, with some slack
+        assertTrue(distance(expected, actual) < 2 * distance(expected, otherSeed) + 0.01);
+    }
+
+    // total variation distance between the hit distributions over 8x8 blocks
+    private static double distance(Histogram first, Histogram second) {
+        double[] p = blocks(first);
+        double[] q = blocks(second);
+        double sum = 0;
+        for (int i = 0; i < p.length; i++) {
+            sum += Math.abs(p[i] - q[i]);
+        }
+        return sum / 2;
+    }
+
+    private static double[] blocks(Histogram histogram) {
+        int columns = histogram.width() / BLOCK;
+        double[] blocks = new double[columns * (histogram.height() / BLOCK)];
+        long total = 0;
+        for (int index = 0; index < histogram.size(); index++) {
+            total += histogram.hitCount(index);
+        }
+        for (int index = 0; index < histogram.size(); index++) {
+            int x = index % histogram.width() / BLOCK;
+            int y = index / histogram.width() / BLOCK;
+            blocks[y * columns + x] += (double) histogram.hitCount(index) / total;
+        }
+        return blocks;
+    }
+}
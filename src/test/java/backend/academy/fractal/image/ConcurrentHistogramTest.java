@@ -0,0 +1,27 @@
+package backend.academy.fractal.image;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistogramTest {
+    @Test
+    void shouldNotLoseConcurrentHits() throws InterruptedException {
+        Histogram histogram = Histogram.createConcurrent(2, 2);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.add(i % 4, 1, 2, 3);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(10_000, histogram.hitCount(0));
+        assertEquals(30_000, histogram.blueSum(3));
+    }
+}
@@ -0,0 +1,39 @@
+package backend.academy.fractal.image;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DensityEstimatorTest {
+    private final DensityEstimator estimator = new DensityEstimator(5, 0.4);
+
+    @Test
+    void shouldSpreadSparseCellAndKeepItsMass() {
+        Histogram histogram = Histogram.create(41, 41);
+        histogram.add(histogram.index(20, 20), 100, 50, 200);
+
+        Histogram estimated = estimator.estimate(histogram);
+
+        double mass = 0;
+        for (int index = 0; index < estimated.size(); index++) {
+            mass += estimated.density(index);
+        }
+        assertEquals(1.0, mass, 1e-9);
+        assertTrue(estimated.density(estimated.index(20, 20)) < 1);
+        assertTrue(estimated.density(estimated.index(22, 20)) > 0);
+    }
+
+    @Test
+    void shouldKeepDenseCellSharp() {
+        Histogram histogram = Histogram.create(41, 41);
+        int index = histogram.index(3, 30);
+        for (int i = 0; i < 10_000; i++) {
+            histogram.add(index, 100, 50, 200);
+        }
+
+        Histogram estimated = estimator.estimate(histogram);
+
+        assertEquals(10_000, estimated.hitCount(index));
+        assertEquals(500_000, estimated.greenSum(index));
+        assertEquals(0, estimated.density(histogram.index(4, 30)));
+    }
+}
@@ -0,0 +1,44 @@
+package backend.academy.fractal.image;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownsamplerTest {
+    @Test
+    void shouldSumCellsOfEveryPixelWithBoxFilter() {
+        Histogram source = new CompactHistogram(6, 3);
+        for (int index = 0; index < source.size(); index++) {
+            source.add(index, index < 3 ? 200 : 100, 0, 0);
+        }
+
+        Histogram target = new Downsampler(DownsamplingFilter.BOX, 3).downsample(source);
+
+        assertEquals(2, target.width());
+        assertEquals(1, target.height());
+        assertEquals(9, target.hitCount(0));
+        assertEquals(200 * 3 + 100 * 6, target.redSum(0));
+    }
+
+    @Test
+    void shouldKeepAverageColorWithinRange() {
+        Histogram source = new CompactHistogram(9, 9);
+        source.add(40, 255, 255, 255);
+        source.add(40, 255, 255, 255);
+
+        for (DownsamplingFilter filter : DownsamplingFilter.values()) {
+            Histogram target = new Downsampler(filter, 3).downsample(source);
+            for (int index = 0; index < target.size(); index++) {
+                int hits = target.hitCount(index);
+                assertTrue(target.redSum(index) <= 255L * hits);
+                assertTrue(target.blueSum(index) >= 0);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectSizeThatIsNotMultipleOfFactor() {
+        Downsampler downsampler = new Downsampler(DownsamplingFilter.TENT, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> downsampler.downsample(Histogram.create(5, 4)));
+    }
+}
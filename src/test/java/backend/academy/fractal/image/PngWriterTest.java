@@ -0,0 +1,84 @@
+package backend.academy.fractal.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PngWriterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldWriteImageReadableByImageIo() throws IOException {
+        // random pixels do not compress, so the data spans several IDAT chunks
+        int width = 300;
+        int height = 200;
+        int[] pixels = new SplittableRandom(1).ints(width * height, 0, 1 << 24).toArray();
+        Path path = directory.resolve("random.png");
+
+        try (PngWriter writer = new PngWriter(path, width, height, Deflater.BEST_SPEED)) {
+            writer.writeRows(pixels, 120);
+            int[] rest = new int[(height - 120) * width];
+            System.arraycopy(pixels, 120 * width, rest, 0, rest.length);
+            writer.writeRows(rest, height - 120);
+        }
+
+        BufferedImage image = ImageIO.read(path.toFile());
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(pixels[y * width + x], image.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngFilter.class)
+    void shouldCompressBlocksInParallelWithEveryFilter(PngFilter filter) throws IOException {
+        // a smooth gradient with noise, 600 rows of 1801 bytes make many blocks chained by dictionaries
+        int width = 600;
+        int height = 600;
+        SplittableRandom random = new SplittableRandom(2);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            int x = i % width;
+            int y = i / width;
+            pixels[i] = (x * 255 / width) << 16 | (y * 255 / height) << 8 | random.nextInt(16);
+        }
+        Path path = directory.resolve(filter + ".png");
+
+        try (PngWriter writer = new PngWriter(path, width, height, 6, filter, ForkJoinPool.commonPool())) {
+            writer.writeRows(pixels, height);
+        }
+
+        BufferedImage image = ImageIO.read(path.toFile());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(pixels[y * width + x], image.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectIncompleteImage() throws IOException {
+        PngWriter writer = new PngWriter(directory.resolve("short.png"), 4, 4, Deflater.DEFAULT_COMPRESSION);
+        writer.writeRows(new int[8], 2);
+
+        assertThrows(IllegalStateException.class, writer::close);
+        assertThrows(IllegalStateException.class, () -> {
+            try (PngWriter tall = new PngWriter(directory.resolve("tall.png"), 4, 4, 1)) {
+                tall.writeRows(new int[20], 5);
+            }
+        });
+    }
+}
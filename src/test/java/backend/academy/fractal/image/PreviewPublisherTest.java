@@ -0,0 +1,127 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.transformations.linear.AffineTransformations;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.units.Symmetry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviewPublisherTest {
+    private static final ChaosGame CHAOS_GAME = new ChaosGame(
+        64, 48, new DiamondTransformation(), new AffineTransformations().getTransformation(1), Symmetry.parse("2"), 50
+    );
+
+    @Test
+    void shouldPublishFinalFrameAfterPreviews() throws InterruptedException {
+        PreviewPublisher previews = new PreviewPublisher(new ToneMapper(2.2));
+        List<PreviewFrame> frames = new CopyOnWriteArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        previews.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(PreviewFrame frame) {
+                frames.add(frame);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        try (RenderScheduler scheduler = new RenderScheduler(2)) {
+            scheduler.start(CHAOS_GAME, 20_000, 2, AccumulationMode.SHARED, 42, previews, 2_000).join();
+        }
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        PreviewFrame last = frames.get(frames.size() - 1);
+        assertTrue(last.last());
+        assertEquals(1.0, last.progress());
+        assertEquals(64, last.image().getWidth());
+        assertEquals(1, frames.stream().filter(PreviewFrame::last).count());
+    }
+
+    @Test
+    void shouldDeliverFinalFrameToSlowSubscriber() throws InterruptedException {
+        PreviewPublisher previews = new PreviewPublisher(new ToneMapper(2.2));
+        List<PreviewFrame> frames = new CopyOnWriteArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        previews.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(PreviewFrame frame) {
+                frames.add(frame);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        try (RenderScheduler scheduler = new RenderScheduler(2)) {
+            scheduler.start(CHAOS_GAME, 20_000, 2, AccumulationMode.SHARED, 42, previews, 100).join();
+        }
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertTrue(frames.get(frames.size() - 1).last());
+    }
+
+    @Test
+    void shouldNotStallRenderForSubscriberThatRequestsNothing() {
+        PreviewPublisher previews = new PreviewPublisher(new ToneMapper(2.2));
+        previews.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+            }
+
+            @Override
+            public void onNext(PreviewFrame frame) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        try (RenderScheduler scheduler = new RenderScheduler(2)) {
+            RenderHandle handle = scheduler.start(CHAOS_GAME, 20_000, 2, AccumulationMode.SHARED, 42, previews, 100);
+            handle.join();
+            assertEquals(1.0, handle.progress());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package backend.academy.fractal.image;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderOptionsTest {
+    @Test
+    void shouldStartFromPlainRender() {
+        RenderOptions options = RenderOptions.threads(4).withMode(AccumulationMode.SHARED);
+
+        assertEquals(4, options.threads());
+        assertEquals(AccumulationMode.SHARED, options.mode());
+        assertNull(options.timeBudget());
+        assertNull(options.histogram());
+    }
+
+    @Test
+    void shouldRejectTwoWaysOfRunningRender() {
+        RenderOptions limited = RenderOptions.threads(2).withTimeBudget(Duration.ofSeconds(1));
+
+        assertThrows(IllegalArgumentException.class, () -> limited.withHistogram(Histogram.create(4, 4)));
+        assertThrows(IllegalArgumentException.class,
+            () -> limited.withDownsampler(new Downsampler(DownsamplingFilter.BOX, 2)));
+        assertThrows(IllegalArgumentException.class, () -> RenderOptions.threads(0));
+    }
+}
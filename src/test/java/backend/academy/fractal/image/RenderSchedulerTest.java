@@ -0,0 +1,80 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.transformations.linear.AffineTransformations;
+import backend.academy.fractal.transformations.nonlinear.DiamondTransformation;
+import backend.academy.fractal.units.Symmetry;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderSchedulerTest {
+    private static final RenderScheduler SCHEDULER = new RenderScheduler(4);
+    private static final ChaosGame CHAOS_GAME = new ChaosGame(
+        64, 48, new DiamondTransformation(), new AffineTransformations().getTransformation(1), Symmetry.parse("2"), 50
+    );
+
+    @AfterAll
+    static void closeScheduler() {
+        SCHEDULER.close();
+    }
+
+    @Test
+    void shouldNotDependOnNumberOfThreads() {
+        Histogram single = SCHEDULER.render(CHAOS_GAME, 5_000, 1, AccumulationMode.PER_THREAD, 42);
+        Histogram shared = SCHEDULER.render(CHAOS_GAME, 5_000, 4, AccumulationMode.SHARED, 42);
+        Histogram perThread = SCHEDULER.render(CHAOS_GAME, 5_000, 4, AccumulationMode.PER_THREAD, 42);
+
+        for (int index = 0; index < single.size(); index++) {
+            assertEquals(single.hitCount(index), shared.hitCount(index));
+            assertEquals(single.redSum(index), perThread.redSum(index));
+        }
+    }
+
+    @Test
+    void shouldReturnPartialResultWhenDeadlineHasPassed() {
+        RenderHandle handle = SCHEDULER.start(CHAOS_GAME, 100_000_000, 4, AccumulationMode.SHARED, 42);
+
+        Histogram histogram = handle.awaitUntil(Instant.now());
+
+        assertTrue(handle.isDone());
+        assertTrue(handle.progress() < 1);
+        assertEquals(64 * 48, histogram.size());
+    }
+
+    @Test
+    void shouldStopCancelledRender() {
+        RenderHandle handle = SCHEDULER.start(CHAOS_GAME, 100_000_000, 4, AccumulationMode.PER_THREAD, 42);
+
+        handle.cancel();
+
+        assertTrue(handle.isCancelled());
+        assertTrue(handle.join().size() > 0);
+        assertTrue(handle.progress() < 1);
+    }
+
+    @Test
+    void shouldCutLargestRenderIntoBatches() {
+        RenderHandle handle = SCHEDULER.start(CHAOS_GAME, Integer.MAX_VALUE, 4, AccumulationMode.SHARED, 42);
+
+        handle.cancel();
+        handle.join();
+
+        assertTrue(handle.batches() > 0);
+        assertTrue(handle.progress() < 1);
+        assertTrue(handle.completedPoints() >= 0);
+    }
+
+    @Test
+    void shouldCancelRenderWhenJoiningThreadIsInterrupted() {
+        RenderHandle handle = SCHEDULER.start(CHAOS_GAME, 100_000_000, 4, AccumulationMode.PER_THREAD, 42);
+
+        Thread.currentThread().interrupt();
+        Histogram histogram = handle.join();
+
+        assertTrue(Thread.interrupted());
+        assertTrue(handle.isCancelled());
+        assertTrue(handle.progress() < 1);
+        assertSame(histogram, handle.join());
+    }
+}
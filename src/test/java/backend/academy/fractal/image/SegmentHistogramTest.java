@@ -0,0 +1,54 @@
+package backend.academy.fractal.image;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentHistogramTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldNotLoseConcurrentHits() throws InterruptedException, IOException {
+        try (SegmentHistogram histogram = SegmentHistogram.allocate(3, 3)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 9_000; i++) {
+                        histogram.add(i % 9, 1, 2, 3);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(4_000, histogram.hitCount(0));
+            assertEquals(8_000, histogram.greenSum(4));
+            assertEquals(12_000, histogram.blueSum(8));
+        }
+    }
+
+    @Test
+    void shouldMergeHeapHistogramIntoMappedOne() throws IOException {
+        Path file = directory.resolve("histogram.bin");
+        Histogram heap = Histogram.create(4, 2);
+        heap.add(5, 10, 20, 30);
+        heap.add(5, 10, 20, 30);
+
+        try (SegmentHistogram mapped = SegmentHistogram.map(4, 2, file)) {
+            mapped.merge(heap);
+
+            assertEquals(2, mapped.hitCount(5));
+            assertEquals(40, mapped.greenSum(5));
+            assertEquals(0, mapped.hitCount(4));
+            assertEquals(SegmentHistogram.byteSize(4, 2), Files.size(file));
+        }
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,87 @@
+package backend.academy.fractal.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToneMapperTest {
+    private static final RenderScheduler SCHEDULER = new RenderScheduler(2);
+    private final ToneMapper toneMapper = new ToneMapper(2.2);
+
+    @TempDir
+    Path directory;
+
+    @AfterAll
+    static void closeScheduler() {
+        SCHEDULER.close();
+    }
+
+    @Test
+    void shouldKeepAverageColorOfDensestCell() {
+        Histogram histogram = Histogram.create(2, 1);
+        for (int i = 0; i < 10; i++) {
+            histogram.add(0, 100, 50, 200);
+        }
+        histogram.add(1, 255, 255, 255);
+
+        BufferedImage image = toneMapper.toImage(histogram);
+
+        assertEquals(0x6432C8, image.getRGB(0, 0) & 0xFFFFFF);
+        // a single hit has a zero logarithm and stays black
+        assertEquals(0, image.getRGB(1, 0) & 0xFFFFFF);
+    }
+
+    @Test
+    void shouldApplyBrightnessAndWhiteDensity() {
+        Histogram histogram = Histogram.create(1, 1);
+        for (int i = 0; i < 10; i++) {
+            histogram.add(0, 100, 50, 200);
+        }
+
+        int brighter = new ToneMapper(2.2, 2.0, 0.0).toImage(histogram).getRGB(0, 0);
+        // ten hits are halfway to a white density of a hundred on the logarithmic scale
+        int dimmer = new ToneMapper(2.2, 1.0, 100.0).toImage(histogram).getRGB(0, 0);
+
+        assertEquals(0xC864FF, brighter & 0xFFFFFF);
+        assertEquals(0x482491, dimmer & 0xFFFFFF);
+    }
+
+    @Test
+    void shouldMapEmptyHistogramToBlack() {
+        int[] pixels = {1, 2, 3, 4};
+
+        toneMapper.map(Histogram.create(2, 2), pixels);
+
+        assertArrayEquals(new int[4], pixels);
+    }
+
+    @Test
+    void shouldStreamSamePixelsAsImage() throws IOException {
+        // 150 rows span several streamed bands and leave a partial one
+        Histogram histogram = Histogram.create(97, 150);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 100_000; i++) {
+            histogram.add(random.nextInt(histogram.size()), random.nextInt(256), random.nextInt(256), 255);
+        }
+        Path path = directory.resolve("streamed.png");
+
+        try (PngWriter writer = new PngWriter(path, 97, 150, Deflater.DEFAULT_COMPRESSION)) {
+            toneMapper.write(histogram, writer, SCHEDULER.executor());
+        }
+
+        BufferedImage expected = toneMapper.toImage(histogram);
+        BufferedImage streamed = ImageIO.read(path.toFile());
+        for (int y = 0; y < 150; y++) {
+            for (int x = 0; x < 97; x++) {
+                assertEquals(expected.getRGB(x, y), streamed.getRGB(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package backend.academy.fractal.random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AliasTableTest {
+    @Test
+    void shouldSampleIndicesByWeight() {
+        double[] weights = {1, 2, 3, 4, 0.5};
+        AliasTable table = new AliasTable(weights);
+        int[] indices = new int[200_000];
+        int[] counts = new int[weights.length];
+
+        table.sample(RandomSource.create(3), indices);
+
+        for (int index : indices) {
+            counts[index]++;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            double expected = weights[i] / 10.5 * indices.length;
+            assertEquals(expected, counts[i], expected * 0.03);
+        }
+    }
+
+    @Test
+    void shouldDrawPlainIndicesForEqualWeights() {
+        int[] expected = new int[64];
+        int[] actual = new int[64];
+
+        RandomSource.create(5).nextInts(expected, 4);
+        new AliasTable(new double[] {2, 2, 2, 2}).sample(RandomSource.create(5), actual);
+
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void shouldRejectInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[] {1, 0}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[] {1, Double.NaN}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[] {Double.POSITIVE_INFINITY}));
+    }
+}
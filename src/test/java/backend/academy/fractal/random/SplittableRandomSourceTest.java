@@ -0,0 +1,31 @@
+package backend.academy.fractal.random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplittableRandomSourceTest {
+    @Test
+    void shouldRepeatSequenceForSameSeed() {
+        RandomSource first = RandomSource.create(42);
+        RandomSource second = RandomSource.create(42);
+        int[] firstIndices = new int[16];
+        int[] secondIndices = new int[16];
+
+        first.split().nextInts(firstIndices, 5);
+        second.split().nextInts(secondIndices, 5);
+
+        assertArrayEquals(firstIndices, secondIndices);
+    }
+
+    @Test
+    void shouldStayWithinBounds() {
+        RandomSource random = RandomSource.create(7);
+        double[] values = new double[256];
+
+        random.nextDoubles(values, -1.2, 1.2);
+
+        for (double value : values) {
+            assertTrue(value >= -1.2 && value < 1.2);
+        }
+    }
+}
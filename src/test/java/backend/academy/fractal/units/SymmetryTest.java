@@ -0,0 +1,37 @@
+package backend.academy.fractal.units;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymmetryTest {
+    private static final double DELTA = 1e-12;
+
+    @Test
+    void shouldBuildRotationTable() {
+        Symmetry symmetry = Symmetry.parse("4");
+        double[] matrices = symmetry.matrices();
+
+        assertEquals(4, symmetry.size());
+        // a quarter turn sends (1, 0) to (0, 1)
+        assertEquals(0, matrices[4], DELTA);
+        assertEquals(1, matrices[6], DELTA);
+    }
+
+    @Test
+    void shouldAddMirrorImagesForDihedralGroup() {
+        Symmetry symmetry = Symmetry.parse("d3");
+        double[] matrices = symmetry.matrices();
+
+        assertEquals(6, symmetry.size());
+        // the first reflection mirrors across the x axis
+        assertArrayEquals(new double[] {1, 0, 0, -1}, new double[] {
+            matrices[12], matrices[13], matrices[14], matrices[15]
+        }, DELTA);
+    }
+
+    @Test
+    void shouldRejectInvalidSpec() {
+        assertThrows(IllegalArgumentException.class, () -> Symmetry.parse("D0"));
+        assertThrows(IllegalArgumentException.class, () -> Symmetry.parse("X6"));
+    }
+}
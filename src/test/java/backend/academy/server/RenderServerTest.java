@@ -0,0 +1,91 @@
+package backend.academy.server;
+
+import backend.academy.fractal.image.RenderScheduler;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderServerTest {
+    private static final RenderScheduler SCHEDULER = new RenderScheduler(2);
+    private static final String SMALL_JOB = "width=64&height=48&transformation=1&iterations=20&points=2000&seed=5";
+    private static final String LONG_JOB = "width=64&height=48&transformation=1&iterations=100&points=500000000";
+    private final HttpClient client = HttpClient.newHttpClient();
+    private RenderServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new RenderServer(
+            new InetSocketAddress("localhost", 0), new RenderService(SCHEDULER, 1, 1, 1 << 20, Long.MAX_VALUE));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @AfterAll
+    static void closeScheduler() {
+        SCHEDULER.close();
+    }
+
+    @Test
+    void shouldRespondWithRenderedImage() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = send("GET", "/render?" + SMALL_JOB);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("image/png", response.headers().firstValue("Content-Type").orElseThrow());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(response.body()));
+        assertEquals(64, image.getWidth());
+        assertEquals(48, image.getHeight());
+    }
+
+    @Test
+    void shouldServeQueuedJobById() throws IOException, InterruptedException {
+        HttpResponse<byte[]> queued = send("POST", "/jobs?" + SMALL_JOB);
+        String location = queued.headers().firstValue("Location").orElseThrow();
+
+        assertEquals(202, queued.statusCode());
+        await().atMost(Duration.ofSeconds(30)).until(() -> send("GET", location).statusCode() == 200);
+        assertEquals(204, send("DELETE", location).statusCode());
+        assertEquals(404, send("GET", "/jobs/unknown").statusCode());
+    }
+
+    @Test
+    void shouldRejectJobsWhenQueueIsFull() throws IOException, InterruptedException {
+        assertEquals(202, send("POST", "/jobs?" + LONG_JOB).statusCode());
+        assertEquals(202, send("POST", "/jobs?" + LONG_JOB).statusCode());
+
+        HttpResponse<byte[]> rejected = send("POST", "/jobs?" + LONG_JOB);
+
+        assertEquals(503, rejected.statusCode());
+        assertTrue(rejected.headers().firstValue("Retry-After").isPresent());
+    }
+
+    @Test
+    void shouldRejectInvalidJobs() throws IOException, InterruptedException {
+        assertEquals(400, send("GET", "/render?height=48").statusCode());
+        assertEquals(400, send("GET", "/render?width=4096&height=4096").statusCode());
+        assertEquals(400, send("GET", "/render?width=64&height=48&format=gif").statusCode());
+    }
+
+    private HttpResponse<byte[]> send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,102 @@
+package backend.academy.server;
+
+import backend.academy.cli.RenderJob;
+import backend.academy.fractal.image.ImageFormat;
+import backend.academy.fractal.image.RenderScheduler;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderServiceTest {
+    private static final RenderScheduler SCHEDULER = new RenderScheduler(2);
+    private static final long CACHE_BYTES = 1 << 20;
+    private static final long MAX_STEPS = 1L << 40;
+
+    @TempDir
+    Path directory;
+
+    @AfterAll
+    static void closeScheduler() {
+        SCHEDULER.close();
+    }
+
+    @Test
+    void shouldKeyJobsByWhatTheyRender() {
+        assertEquals(RenderCache.key(job(1, 7L)), RenderCache.key(job(4, 7L)));
+        assertNotEquals(RenderCache.key(job(1, 7L)), RenderCache.key(job(1, 8L)));
+        assertNull(RenderCache.key(job(1, null)));
+    }
+
+    @Test
+    void shouldServeCachedImagesFromMemoryAndDisk() throws IOException {
+        byte[] rendered;
+        try (RenderService service = new RenderService(SCHEDULER, 1, 1, 1 << 20, MAX_STEPS, cache())) {
+            rendered = service.submit(job(2, 3L)).image().join();
+
+            RenderTicket repeated = service.submit(job(1, 3L));
+
+            assertEquals(RenderTicket.Status.DONE, repeated.status());
+            assertArrayEquals(rendered, repeated.image().join());
+        }
+        try (RenderService restarted = new RenderService(SCHEDULER, 1, 1, 1 << 20, MAX_STEPS, cache())) {
+            RenderTicket fromDisk = restarted.submit(job(2, 3L));
+
+            assertEquals(RenderTicket.Status.DONE, fromDisk.status());
+            assertArrayEquals(rendered, fromDisk.image().join());
+        }
+    }
+
+    @Test
+    void shouldCoalesceIdenticalJobsIntoOneRender() throws IOException {
+        try (RenderService service = new RenderService(SCHEDULER, 1, 1, 1 << 20, MAX_STEPS, cache())) {
+            // one worker and one queue slot would reject the third of three different jobs
+            List<RenderTicket> tickets = List.of(
+                service.submit(longJob(2)), service.submit(longJob(2)), service.submit(longJob(1)));
+            tickets.get(1).cancel();
+
+            byte[] image = tickets.get(0).image().join();
+
+            assertArrayEquals(image, tickets.get(2).image().join());
+            assertEquals(RenderTicket.Status.FAILED, tickets.get(1).status());
+        }
+    }
+
+    @Test
+    void shouldRejectJobsBeyondLimits() {
+        try (RenderService service = new RenderService(SCHEDULER, 1, 1, 1 << 20, 1_000_000)) {
+            assertThrows(IllegalArgumentException.class, () -> service.submit(longJob(1)));
+        }
+    }
+
+    @Test
+    void shouldRejectJoiningTicketsOnceRegistryIsFull() throws IOException {
+        try (RenderService service = new RenderService(SCHEDULER, 1, 1, 1 << 20, MAX_STEPS, cache())) {
+            RenderJob job = new RenderJob(null, 64, 48, 0, 100, 500_000_000, null, "2", 1, ImageFormat.PNG, 5L);
+            service.submit(job);
+
+            // identical jobs join the running render, so only the registry bound can stop them
+            assertThrows(RejectedExecutionException.class, () -> {
+                for (int ticket = 0; ticket < 1_000; ticket++) {
+                    service.submit(job);
+                }
+            });
+        }
+    }
+
+    private RenderCache cache() throws IOException {
+        return new RenderCache(CACHE_BYTES, directory);
+    }
+
+    private static RenderJob job(int threads, Long seed) {
+        return new RenderJob(null, 64, 48, 0, 20, 200_000, null, "2", threads, ImageFormat.PNG, seed);
+    }
+
+    private static RenderJob longJob(int threads) {
+        return new RenderJob(null, 64, 48, 0, 20, 500_000, null, "2", threads, ImageFormat.PNG, 11L);
+    }
+}
@@ -0,0 +1,121 @@
+package backend.academy.fractal.image;
+
+import backend.academy.fractal.random.AliasTable;
+import backend.academy.fractal.random.RandomSource;
+import backend.academy.fractal.transformations.nonlinear.VectorVariations;
+import backend.academy.fractal.transformations.nonlinear.VectorVariations.VectorTransformation;
+import backend.academy.fractal.units.AffineMatrix;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The VectorChaosKernel class advances as many independent walkers per step as a SIMD register holds doubles,
+ * four with AVX2 and eight with AVX-512. The coefficients of the affine maps are gathered lanewise
+ * from arrays, the built-in variations run on the vector math of the Vector API,
+ * and only the hits are recorded one lane at a time.
+ * A transformation without a vector form and the walkers left over from the last full vector
+ * run on the scalar kernel. It is loaded reflectively by {@link ChaosKernels#vector()}.
+ */
+final class VectorChaosKernel implements ChaosKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Constructs a VectorChaosKernel. Loading the class fails if the Vector API module is not present.
+     */
+    VectorChaosKernel() {
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+
+    /**
+     * The vector math may round differently in interpreted and compiled code, see {@link ChaosKernels}.
+     *
+     * @return false
+     */
+    @Override
+    public boolean reproducible() {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public void play(ChaosGame game, int num, RandomSource random, Histogram histogram) {
+        VectorTransformation variation = VectorVariations.of(game.transformation());
+        int lanes = SPECIES.length();
+        int vectorPoints = num - num % lanes;
+        if (variation == null || ChaosGame.BATCH_SIZE % lanes != 0) {
+            game.playScalar(num, random, histogram);
+            return;
+        }
+        AffineMatrix[] matrices = game.matrices();
+        AliasTable selection = game.selection();
+        double[][] coefficients = new double[6][matrices.length];
+        for (int i = 0; i < matrices.length; i++) {
+            coefficients[0][i] = matrices[i].a();
+            coefficients[1][i] = matrices[i].b();
+            coefficients[2][i] = matrices[i].c();
+            coefficients[3][i] = matrices[i].d();
+            coefficients[4][i] = matrices[i].e();
+            coefficients[5][i] = matrices[i].f();
+        }
+        int maxIterations = game.maxIterations();
+        DoubleVector[] transformed = new DoubleVector[2];
+        double[] laneX = new double[lanes];
+        double[] laneY = new double[lanes];
+        // random numbers are drawn in batches like in the scalar kernel, a whole number of vectors at a time
+        double[] startX = new double[ChaosGame.BATCH_SIZE];
+        double[] startY = new double[ChaosGame.BATCH_SIZE];
+        int[] indices = new int[ChaosGame.BATCH_SIZE];
+        int nextIndex = ChaosGame.BATCH_SIZE;
+        for (int points = 0; points < vectorPoints; points += lanes) {
+            int nextStart = points % ChaosGame.BATCH_SIZE;
+            if (nextStart == 0) {
+                random.nextDoubles(startX, ChaosGame.X_MIN, ChaosGame.X_MAX);
+                random.nextDoubles(startY, ChaosGame.Y_MIN, ChaosGame.Y_MAX);
+            }
+            DoubleVector x = DoubleVector.fromArray(SPECIES, startX, nextStart);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, startY, nextStart);
+
+            for (int step = ChaosGame.INITIAL_ITER; step < maxIterations; step++) {
+                if (nextIndex == ChaosGame.BATCH_SIZE) {
+                    selection.sample(random, indices);
+                    nextIndex = 0;
+                }
+                DoubleVector xLinear = gather(coefficients[0], indices, nextIndex).mul(x)
+                    .add(gather(coefficients[1], indices, nextIndex).mul(y))
+                    .add(gather(coefficients[2], indices, nextIndex));
+                DoubleVector yLinear = gather(coefficients[3], indices, nextIndex).mul(x)
+                    .add(gather(coefficients[4], indices, nextIndex).mul(y))
+                    .add(gather(coefficients[5], indices, nextIndex));
+
+                variation.transform(xLinear, yLinear, transformed);
+                x = transformed[0];
+                y = transformed[1];
+                if (step >= 0) {
+                    x.intoArray(laneX, 0);
+                    y.intoArray(laneY, 0);
+                    for (int lane = 0; lane < lanes; lane++) {
+                        game.applySymmetry(laneX[lane], laneY[lane], matrices[indices[nextIndex + lane]], histogram);
+                    }
+                }
+                nextIndex += lanes;
+            }
+        }
+        game.playScalar(num - vectorPoints, random, histogram);
+    }
+
+    /**
+     * Loads one coefficient of the affine map chosen for every lane.
+     *
+     * @param coefficient the coefficient of every affine map
+     * @param indices     the chosen affine maps
+     * @param offset      the index of the map of the first lane
+     * @return the coefficients of the lanes
+     */
+    private static DoubleVector gather(double[] coefficient, int[] indices, int offset) {
+        return DoubleVector.fromArray(SPECIES, coefficient, 0, indices, offset);
+    }
+}
@@ -0,0 +1,130 @@
+package backend.academy.fractal.transformations.nonlinear;
+
+import backend.academy.fractal.transformations.Transformation;
+import java.util.Map;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+
+/**
+ * The VectorVariations class evaluates the built-in non-linear transformations
+ * on a whole vector of points at once with the lanewise math of the Vector API.
+ * Every variation computes the same formula as its scalar class with the same constants,
+ * but the vector math operations may round differently in the last bits.
+ */
+public final class VectorVariations {
+    private static final Map<Class<? extends Transformation>, VectorTransformation> VARIATIONS = Map.of(
+        DiamondTransformation.class, VectorVariations::diamond,
+        BubbleTransformation.class, VectorVariations::bubble,
+        FisheyeTransformation.class, VectorVariations::fisheye,
+        ExponentialTransformation.class, VectorVariations::exponential,
+        RaysTransformation.class, VectorVariations::rays
+    );
+
+    private VectorVariations() {
+    }
+
+    /**
+     * The VectorTransformation interface is a non-linear transformation of a vector of points.
+     */
+    @FunctionalInterface
+    public interface VectorTransformation {
+        /**
+         * Transforms a vector of points.
+         *
+         * @param x   the x-coordinates
+         * @param y   the y-coordinates
+         * @param out the buffer receiving the transformed coordinates as [x, y]
+         */
+        void transform(DoubleVector x, DoubleVector y, DoubleVector[] out);
+    }
+
+    /**
+     * Returns the vector form of a built-in transformation.
+     * Subclasses of the built-in transformations may change the formula, so only the exact classes match.
+     *
+     * @param transformation the scalar transformation
+     * @return the vector form, or null if the transformation has none
+     */
+    public static VectorTransformation of(Transformation transformation) {
+        return VARIATIONS.get(transformation.getClass());
+    }
+
+    /**
+     * Evaluates {@link DiamondTransformation} on a vector of points.
+     *
+     * @param x   the x-coordinates
+     * @param y   the y-coordinates
+     * @param out the buffer receiving the transformed coordinates
+     */
+    private static void diamond(DoubleVector x, DoubleVector y, DoubleVector[] out) {
+        DoubleVector r = x.mul(x).add(y.mul(y)).lanewise(VectorOperators.SQRT);
+        DoubleVector theta = y.lanewise(VectorOperators.ATAN2, x);
+        out[0] = theta.lanewise(VectorOperators.SIN).mul(r.lanewise(VectorOperators.COS))
+            .mul(DiamondTransformation.SCALE);
+        out[1] = theta.lanewise(VectorOperators.COS).mul(r.lanewise(VectorOperators.SIN))
+            .mul(DiamondTransformation.SCALE);
+    }
+
+    /**
+     * Evaluates {@link BubbleTransformation} on a vector of points.
+     *
+     * @param x   the x-coordinates
+     * @param y   the y-coordinates
+     * @param out the buffer receiving the transformed coordinates
+     */
+    private static void bubble(DoubleVector x, DoubleVector y, DoubleVector[] out) {
+        DoubleVector rSquared = x.mul(x).add(y.mul(y));
+        DoubleVector factor = x.broadcast(BubbleTransformation.BUBBLE_RADIUS)
+            .div(rSquared.add(BubbleTransformation.BUBBLE_RADIUS)).mul(BubbleTransformation.SCALE);
+        out[0] = factor.mul(x);
+        out[1] = factor.mul(y);
+    }
+
+    /**
+     * Evaluates {@link FisheyeTransformation} on a vector of points.
+     *
+     * @param x   the x-coordinates
+     * @param y   the y-coordinates
+     * @param out the buffer receiving the transformed coordinates
+     */
+    private static void fisheye(DoubleVector x, DoubleVector y, DoubleVector[] out) {
+        DoubleVector r = x.mul(x).add(y.mul(y)).lanewise(VectorOperators.SQRT);
+        DoubleVector factor = x.broadcast(2).div(r.add(1)).mul(FisheyeTransformation.SCALE);
+        out[0] = factor.mul(y);
+        out[1] = factor.mul(x);
+    }
+
+    /**
+     * Evaluates {@link ExponentialTransformation} on a vector of points.
+     *
+     * @param x   the x-coordinates
+     * @param y   the y-coordinates
+     * @param out the buffer receiving the transformed coordinates
+     */
+    private static void exponential(DoubleVector x, DoubleVector y, DoubleVector[] out) {
+        DoubleVector exp = x.sub(1).lanewise(VectorOperators.EXP).mul(ExponentialTransformation.SCALE);
+        DoubleVector angle = y.mul(Math.PI);
+        // the scalar transformation writes its coordinates swapped
+        out[0] = exp.mul(angle.lanewise(VectorOperators.SIN));
+        out[1] = exp.mul(angle.lanewise(VectorOperators.COS));
+    }
+
+    /**
+     * Evaluates {@link RaysTransformation} on a vector of points.
+     *
+     * @param x   the x-coordinates
+     * @param y   the y-coordinates
+     * @param out the buffer receiving the transformed coordinates
+     */
+    private static void rays(DoubleVector x, DoubleVector y, DoubleVector[] out) {
+        DoubleVector rSquared = x.mul(x).add(y.mul(y));
+        DoubleVector r = rSquared.lanewise(VectorOperators.SQRT);
+        VectorMask<Double> origin = rSquared.eq(0);
+        DoubleVector divisor = rSquared.blend(RaysTransformation.EPSILON, origin);
+        DoubleVector factor = r.mul(r.mul(RaysTransformation.PSI * Math.PI).lanewise(VectorOperators.TAN))
+            .div(divisor).mul(RaysTransformation.SCALE);
+        out[0] = factor.mul(x.lanewise(VectorOperators.COS));
+        out[1] = factor.mul(y.lanewise(VectorOperators.SIN));
+    }
+}